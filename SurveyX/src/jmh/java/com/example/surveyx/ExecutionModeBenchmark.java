@@ -0,0 +1,136 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.example.surveyx.services.SurveyAnalyticsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform versus virtual threads under many concurrent clients, over real HTTP so
+ * Tomcat's request threads are part of the measurement. Covers the public submit
+ * endpoint and the analytics read endpoints (stored analysis and answer tallies).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+public class ExecutionModeBenchmark {
+
+    private static final int QUESTIONS = 10;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"20"})
+    public int dbPoolSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest submitRequest;
+    private HttpRequest analyticsRequest;
+    private HttpRequest talliesRequest;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SurveyXApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.hikari.maximum-pool-size=" + dbPoolSize,
+                "--spring.datasource.url=jdbc:h2:mem:executionmode;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                // One client address sending as fast as it can: measure the write path, not the rate limiter
+                "--app.rate-limit.client-per-minute=" + Integer.MAX_VALUE,
+                "--app.rate-limit.survey-per-minute=" + Integer.MAX_VALUE,
+                "--app.rate-limit.max-concurrent-writes=" + Integer.MAX_VALUE,
+                "--openai.api.key=benchmark");
+
+        Survey survey = new Survey();
+        survey.setTitle("Execution mode benchmark");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = context.getBean(SurveyRepository.class).save(survey);
+
+        List<Question> questions = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            Question question = new Question();
+            question.setSurvey(survey);
+            question.setQuestionText("Question " + q);
+            question.setQuestionType("multiple_choice");
+            question.setAnswerOptions(List.of("a", "b", "c"));
+            questions.add(question);
+        }
+        questions = context.getBean(QuestionRepository.class).saveAll(questions);
+
+        // A stored analysis to read back; with no responses it is generated without calling the LLM
+        context.getBean(SurveyAnalyticsService.class).generateAnalytics(survey.getSurveyId());
+
+        StringBuilder body = new StringBuilder("[");
+        for (Question question : questions) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append("{\"question\":{\"questionId\":").append(question.getQuestionId())
+                    .append("},\"answerText\":\"b\"}");
+        }
+        body.append(']');
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        submitRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/survey/api/" + survey.getSurveyLink() + "/submit"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        analyticsRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/api/analytics/survey/" + survey.getSurveyId()))
+                .GET()
+                .build();
+        talliesRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/api/analytics/survey/" + survey.getSurveyId() + "/tallies"))
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int submit() throws Exception {
+        return send(submitRequest, 202, 503);
+    }
+
+    @Benchmark
+    public int analytics() throws Exception {
+        return send(analyticsRequest, 200, 200);
+    }
+
+    @Benchmark
+    public int tallies() throws Exception {
+        return send(talliesRequest, 200, 200);
+    }
+
+    private int send(HttpRequest request, int expected, int alsoAccepted) throws Exception {
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != expected && status != alsoAccepted) {
+            throw new IllegalStateException("Unexpected status " + status + " for " + request.uri());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.surveyx;
+
+import com.example.surveyx.dto.ResponseView;
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Response;
+import com.example.surveyx.models.Survey;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the payloads the API returns, with a mapper configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonSerializationBenchmark {
+
+    private static final int QUESTIONS = 20;
+
+    @Param({"100", "10000"})
+    public int responseCount;
+
+    private ObjectMapper objectMapper;
+    private Survey survey;
+    private List<Response> responses;
+    private List<ResponseView> responseViews;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        LocalDateTime now = LocalDateTime.now();
+        survey = new Survey();
+        survey.setSurveyId(1L);
+        survey.setTitle("Customer satisfaction");
+        survey.setDescription("Synthetic survey for serialization benchmarks");
+        survey.setCreatedAt(now);
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+
+        List<Question> questions = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            Question question = new Question();
+            question.setQuestionId((long) q + 1);
+            question.setSurvey(survey);
+            question.setQuestionText("How would you rate aspect " + q + "?");
+            question.setQuestionType("multiple_choice");
+            question.setAnswerOptions(List.of("Poor", "Fair", "Good", "Excellent"));
+            questions.add(question);
+        }
+
+        responses = new ArrayList<>(responseCount);
+        responseViews = new ArrayList<>(responseCount);
+        UUID respondentId = UUID.randomUUID();
+        for (int i = 0; i < responseCount; i++) {
+            if (i % QUESTIONS == 0) {
+                respondentId = UUID.randomUUID();
+            }
+            Question question = questions.get(i % QUESTIONS);
+            Response response = new Response((long) i + 1, survey, respondentId, question, "Good", now);
+            responses.add(response);
+            responseViews.add(new ResponseView(response.getResponseId(), survey.getSurveyId(), respondentId,
+                    question.getQuestionId(), question.getQuestionText(), response.getAnswerText(), now));
+        }
+    }
+
+    @Benchmark
+    public byte[] survey() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(survey);
+    }
+
+    @Benchmark
+    public byte[] responseEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] responseViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responseViews);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.example.surveyx.services.SubmissionIngestService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Public submit through the full servlet stack (security filters, JSON binding,
+ * validation, ingest queue, batched writes) against an in-memory H2 database in
+ * PostgreSQL mode. Requests go through MockMvc so loopback TCP latency stays out of
+ * the numbers.
+ *
+ * The ingest queue is sized for an iteration's worth of submissions and drained
+ * between iterations, so requests are not shed against a backlog left over from the
+ * previous one. The {@code accepted} and {@code shed} (503) counters split the score by
+ * outcome; any other status fails the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PublicSubmitBenchmark {
+
+    private static final int QUESTIONS = 10;
+    private static final int QUEUE_CAPACITY = 1_000_000;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private RequestBuilder submitRequest;
+    private SubmissionIngestService ingestService;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long accepted;
+        public long shed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            accepted = 0;
+            shed = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SurveyXApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                // One client address sending as fast as it can: measure the write path, not the rate limiter
+                "--app.rate-limit.client-per-minute=" + Integer.MAX_VALUE,
+                "--app.rate-limit.survey-per-minute=" + Integer.MAX_VALUE,
+                "--app.rate-limit.max-concurrent-writes=" + Integer.MAX_VALUE,
+                "--app.ingest.queue-capacity=" + QUEUE_CAPACITY,
+                "--openai.api.key=benchmark");
+        ingestService = context.getBean(SubmissionIngestService.class);
+
+        Survey survey = new Survey();
+        survey.setTitle("Submit benchmark");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = context.getBean(SurveyRepository.class).save(survey);
+
+        List<Question> questions = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            Question question = new Question();
+            question.setSurvey(survey);
+            question.setQuestionText("Question " + q);
+            question.setQuestionType("multiple_choice");
+            question.setAnswerOptions(List.of("a", "b", "c"));
+            questions.add(question);
+        }
+        questions = context.getBean(QuestionRepository.class).saveAll(questions);
+
+        StringBuilder body = new StringBuilder("[");
+        for (Question question : questions) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append("{\"question\":{\"questionId\":").append(question.getQuestionId())
+                    .append("},\"answerText\":\"b\"}");
+        }
+        body.append(']');
+
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean(FilterChainProxy.class))
+                .build();
+        submitRequest = post("/survey/api/" + survey.getSurveyLink() + "/submit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString());
+    }
+
+    // Each iteration starts with an empty queue, not the backlog of the one before
+    @TearDown(Level.Iteration)
+    public void drainQueue() throws InterruptedException {
+        while (ingestService.getQueueDepth() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int submit(Outcomes outcomes) throws Exception {
+        int status = mockMvc.perform(submitRequest).andReturn().getResponse().getStatus();
+        if (status == 202) {
+            outcomes.accepted++;
+        } else if (status == 503) {
+            outcomes.shed++;
+        } else {
+            throw new IllegalStateException("Unexpected status " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.ResponseRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading all responses of one survey through the entity graph ({@code findBySurvey},
+ * EAGER survey and question) and through the {@code ResponseView} projection. Run with
+ * {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes allocated per read;
+ * {@code ResponseReadPathTests} checks the statements each path prepares.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResponseReadPathBenchmark {
+
+    private static final int QUESTIONS = 20;
+    private static final int RESPONDENTS = 200;
+
+    @Param({"entities", "projection"})
+    public String readPath;
+
+    private ConfigurableApplicationContext context;
+    private ResponseRepository responseRepository;
+    private Survey survey;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SurveyXApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:readpath;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--openai.api.key=benchmark");
+        responseRepository = context.getBean(ResponseRepository.class);
+
+        survey = new Survey();
+        survey.setTitle("Read path benchmark");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = context.getBean(SurveyRepository.class).save(survey);
+
+        List<Question> questions = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            Question question = new Question();
+            question.setSurvey(survey);
+            question.setQuestionText("Question " + q);
+            question.setQuestionType("multiple_choice");
+            question.setAnswerOptions(List.of("a", "b", "c"));
+            questions.add(question);
+        }
+        questions = context.getBean(QuestionRepository.class).saveAll(questions);
+
+        // Plain SQL keeps the setup fast; ids come from the column default
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(QUESTIONS * RESPONDENTS);
+        for (int r = 0; r < RESPONDENTS; r++) {
+            UUID respondentId = UUID.randomUUID();
+            for (Question question : questions) {
+                rows.add(new Object[]{survey.getSurveyId(), question.getQuestionId(), respondentId, "a", now});
+            }
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO responses (survey_id, question_id, respondent_id, answer_text, submitted_at) " +
+                        "VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int readResponses() {
+        return "entities".equals(readPath)
+                ? responseRepository.findBySurvey(survey).size()
+                : responseRepository.findViewsBySurveyId(survey.getSurveyId()).size();
+    }
+}
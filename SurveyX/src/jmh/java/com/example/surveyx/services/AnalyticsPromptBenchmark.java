@@ -0,0 +1,61 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.dto.ResponseView;
+import com.example.surveyx.models.Survey;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt building and chunking for LLM analytics on synthetic surveys of 20 questions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnalyticsPromptBenchmark {
+
+    private static final int QUESTIONS = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    public int answers;
+
+    private SurveyAnalyticsService service;
+    private Survey survey;
+    private List<ResponseView> responses;
+
+    @Setup
+    public void setUp() {
+        service = new SurveyAnalyticsService();
+
+        survey = new Survey();
+        survey.setSurveyId(1L);
+        survey.setTitle("Customer satisfaction");
+        survey.setDescription("Synthetic survey for prompt benchmarks");
+
+        responses = new ArrayList<>(answers);
+        LocalDateTime now = LocalDateTime.now();
+        UUID respondentId = UUID.randomUUID();
+        for (int i = 0; i < answers; i++) {
+            if (i % QUESTIONS == 0) {
+                respondentId = UUID.randomUUID();
+            }
+            long questionId = i % QUESTIONS + 1;
+            responses.add(new ResponseView((long) i + 1, 1L, respondentId, questionId,
+                    "How would you rate aspect " + questionId + "?", "Answer " + (i % 7), now));
+        }
+    }
+
+    @Benchmark
+    public String formatSurveyData() {
+        return service.formatSurveyData(survey, responses);
+    }
+
+    @Benchmark
+    public List<PromptChunker.Chunk> chunk() {
+        return PromptChunker.chunk(responses, 3000);
+    }
+}
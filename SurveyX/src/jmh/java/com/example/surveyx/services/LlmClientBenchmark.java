@@ -0,0 +1,93 @@
+package com.example.surveyx.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline load test of LlmClient against a local chat-completions stub that answers
+ * after {@code latencyMs} and fails with 503 for {@code errorRatePercent} of calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class LlmClientBenchmark {
+
+    private static final byte[] COMPLETION = ("{\"choices\":[{\"message\":{\"role\":\"assistant\","
+            + "\"content\":\"{\\\"summary\\\":\\\"ok\\\",\\\"insights\\\":{}}\"}}]}").getBytes(StandardCharsets.UTF_8);
+
+    @Param({"20"})
+    public int latencyMs;
+
+    @Param({"0", "10"})
+    public int errorRatePercent;
+
+    private HttpServer stub;
+    private LlmClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            boolean fail = ThreadLocalRandom.current().nextInt(100) < errorRatePercent;
+            byte[] body = fail ? new byte[0] : COMPLETION;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fail ? 503 : 200, fail ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+
+        client = new LlmClient();
+        ReflectionTestUtils.setField(client, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(client, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(client, "apiKey", "benchmark");
+        ReflectionTestUtils.setField(client, "apiUrl",
+                "http://localhost:" + stub.getAddress().getPort() + "/v1/chat/completions");
+        ReflectionTestUtils.setField(client, "model", "stub");
+        ReflectionTestUtils.setField(client, "connectTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(client, "readTimeout", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(client, "maxConcurrentRequests", 8);
+        ReflectionTestUtils.setField(client, "acquireTimeout", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(client, "maxAttempts", 3);
+        ReflectionTestUtils.setField(client, "initialBackoff", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(client, "maxBackoff", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(client, "failureThreshold", 50);
+        ReflectionTestUtils.setField(client, "openDuration", Duration.ofSeconds(1));
+        client.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        stub.stop(0);
+    }
+
+    @Benchmark
+    public String complete() {
+        try {
+            return client.complete("system", "user", 0.7);
+        } catch (LlmClient.LlmException e) {
+            return e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.SurveyXApplication;
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Response;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second stored through {@link ResponseService#saveResponsesForSurvey}, i.e.
+ * JPA {@code saveAll} of one large submission. {@code tcp} runs H2 as a server on
+ * loopback, so every statement round trip pays for a network hop the way it does
+ * against PostgreSQL; {@code mem} shows the cost without that.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResponseInsertBenchmark {
+
+    private static final int QUESTIONS = 20;
+    private static final int ROWS = 1000;
+
+    @Param({"mem", "tcp"})
+    public String database;
+
+    private Server h2Server;
+    private ConfigurableApplicationContext context;
+    private ResponseService responseService;
+    private Long surveyId;
+    private List<Long> questionIds;
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:inserts;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+        if ("tcp".equals(database)) {
+            h2Server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + h2Server.getPort() + "/mem:inserts;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+        }
+
+        context = new SpringApplicationBuilder(SurveyXApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--openai.api.key=benchmark");
+        responseService = context.getBean(ResponseService.class);
+
+        Survey survey = new Survey();
+        survey.setTitle("Insert benchmark");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = context.getBean(SurveyRepository.class).save(survey);
+        surveyId = survey.getSurveyId();
+
+        List<Question> questions = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS; q++) {
+            Question question = new Question();
+            question.setSurvey(survey);
+            question.setQuestionText("Question " + q);
+            question.setQuestionType("text");
+            questions.add(question);
+        }
+        questionIds = context.getBean(QuestionRepository.class).saveAll(questions).stream()
+                .map(Question::getQuestionId)
+                .toList();
+    }
+
+    // Keeps the table, and with it the in-memory database, from growing over the run
+    @TearDown(Level.Iteration)
+    public void clearResponses() {
+        context.getBean(JdbcTemplate.class).execute("TRUNCATE TABLE responses");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        if (h2Server != null) {
+            h2Server.stop();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Response> saveResponsesForSurvey() {
+        List<Response> responses = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Question question = new Question();
+            question.setQuestionId(questionIds.get(i % QUESTIONS));
+            Response response = new Response();
+            response.setQuestion(question);
+            response.setAnswerText("Answer " + i);
+            responses.add(response);
+        }
+        return responseService.saveResponsesForSurvey(surveyId, responses);
+    }
+}
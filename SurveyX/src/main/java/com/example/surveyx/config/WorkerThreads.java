@@ -0,0 +1,26 @@
+package com.example.surveyx.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the application's own executors. They follow
+ * {@code spring.threads.virtual.enabled}, so the one switch that moves Tomcat and
+ * scheduled work to virtual threads moves background work too. Executor sizes still
+ * bound how much of that work runs at once in either mode.
+ */
+@Component
+public class WorkerThreads {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public ThreadFactory factory(String namePrefix) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name(namePrefix, 1).factory();
+        }
+        return Thread.ofPlatform().name(namePrefix, 1).daemon(true).factory();
+    }
+}
@@ -1,18 +1,23 @@
 package com.example.surveyx.controllers;
 
-import com.example.surveyx.models.Question;
 import com.example.surveyx.models.Response;
-import com.example.surveyx.models.Survey;
-import com.example.surveyx.services.QuestionService;
-import com.example.surveyx.services.ResponseService;
-import com.example.surveyx.services.SurveyService;
+import com.example.surveyx.services.SubmissionIngestService;
+import com.example.surveyx.services.SubmissionKeyService;
+import com.example.surveyx.services.SubmissionRateLimiter;
+import com.example.surveyx.services.SurveyDefinitionCache;
+import com.example.surveyx.services.SurveyDefinitionCache.SurveyDefinition;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -22,30 +27,38 @@ import java.util.UUID;
 @RequestMapping("/survey")
 public class PublicSurveyController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Autowired
+    private SurveyDefinitionCache surveyDefinitionCache;
+
     @Autowired
-    private SurveyService surveyService;
+    private SubmissionIngestService submissionIngestService;
 
     @Autowired
-    private QuestionService questionService;
+    private SubmissionRateLimiter submissionRateLimiter;
 
     @Autowired
-    private ResponseService responseService;
+    private SubmissionKeyService submissionKeyService;
+
+    @Value("${app.survey-cache.public-max-age:60s}")
+    private Duration publicMaxAge;
 
 
     @GetMapping("/{surveyLink}")
     public String viewSurvey(@PathVariable String surveyLink, Map<String, Object> model) {
-        Survey survey = surveyService.getSurveyByLink(surveyLink);
+        SurveyDefinition definition = surveyDefinitionCache.get(surveyLink);
 
-        if (survey == null || !"active".equals(survey.getStatus())) {
+        if (!isActive(definition)) {
             // If survey doesn't exist or isn't active, show error
             model.put("error", "Survey not found or not currently active");
             return "error";
         }
 
-        List<Question> questions = questionService.getQuestionsBySurvey(survey);
-
-        model.put("survey", survey);
-        model.put("questions", questions);
+        model.put("survey", definition.survey());
+        model.put("questions", definition.questions());
 
         return "survey-form";
     }
@@ -53,20 +66,19 @@ public class PublicSurveyController {
 
     @GetMapping("/api/{surveyLink}")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getSurveyData(@PathVariable String surveyLink) {
-        Survey survey = surveyService.getSurveyByLink(surveyLink);
+    public ResponseEntity<byte[]> getSurveyData(@PathVariable String surveyLink) {
+        SurveyDefinition definition = surveyDefinitionCache.get(surveyLink);
 
-        if (survey == null || !"active".equals(survey.getStatus())) {
+        if (!isActive(definition)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        List<Question> questions = questionService.getQuestionsBySurvey(survey);
-
-        Map<String, Object> responseData = new HashMap<>();
-        responseData.put("survey", survey);
-        responseData.put("questions", questions);
-
-        return new ResponseEntity<>(responseData, HttpStatus.OK);
+        // Spring answers a matching If-None-Match with 304 based on the ETag set here
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(definition.etag())
+                .cacheControl(CacheControl.maxAge(publicMaxAge).cachePublic())
+                .body(definition.publicPayload());
     }
 
 
@@ -74,30 +86,103 @@ public class PublicSurveyController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> submitSurveyResponse(
             @PathVariable String surveyLink,
-            @RequestBody List<Response> responses) {
+            @RequestBody List<Response> responses,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest request) {
 
-        Survey survey = surveyService.getSurveyByLink(surveyLink);
+        SurveyDefinition definition = surveyDefinitionCache.get(surveyLink);
 
-        if (survey == null || !"active".equals(survey.getStatus())) {
+        if (!isActive(definition)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        UUID respondentId = UUID.randomUUID();
+        if (idempotencyKey != null) {
+            if (!SubmissionKeyService.isValid(idempotencyKey)) {
+                Map<String, Object> result = new HashMap<>();
+                result.put("success", false);
+                result.put("message", IDEMPOTENCY_KEY_HEADER + " must be 1 to "
+                        + SubmissionKeyService.MAX_KEY_LENGTH + " characters");
+                return new ResponseEntity<>(result, HttpStatus.BAD_REQUEST);
+            }
+            // A retry of a submission this node already accepted costs no tokens and no write
+            UUID original = submissionKeyService.find(definition.survey().getSurveyId(), idempotencyKey);
+            if (original != null) {
+                return accepted(original, true);
+            }
+        }
+
+        SubmissionRateLimiter.Rejection rejection = submissionRateLimiter.tryAcquire(
+                surveyLink, definition.survey().getSubmissionRateLimit(), request.getRemoteAddr());
+        if (rejection == null) {
+            rejection = submissionRateLimiter.tryStartWrite();
+            if (rejection == null) {
+                try {
+                    return submit(definition, responses, idempotencyKey);
+                } finally {
+                    submissionRateLimiter.endWrite();
+                }
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("message", "Too many submissions, please retry shortly");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejection.retryAfterSeconds()))
+                .body(result);
+    }
+
+    private ResponseEntity<Map<String, Object>> submit(SurveyDefinition definition, List<Response> responses,
+                                                       String idempotencyKey) {
+        Map<String, Object> result = new HashMap<>();
+
+        SubmissionIngestService.PendingSubmission submission;
+        try {
+            submission = submissionIngestService.prepare(definition.survey(), definition.questions(), responses,
+                    idempotencyKey);
+        } catch (IllegalArgumentException e) {
+            result.put("success", false);
+            result.put("message", e.getMessage());
+            return new ResponseEntity<>(result, HttpStatus.BAD_REQUEST);
+        }
 
-        for (Response response : responses) {
-            response.setSurvey(survey);
-            response.setRespondentId(respondentId);
-            responseService.saveResponse(response);
+        Long surveyId = submission.surveyId();
+        if (idempotencyKey != null) {
+            // A concurrent retry may have claimed the key since the check above, or it is stored already
+            UUID original = submissionKeyService.claim(surveyId, idempotencyKey, submission.respondentId());
+            if (original != null) {
+                return accepted(original, true);
+            }
         }
 
-        survey.setResponseCount(survey.getResponseCount() + 1);
-        surveyService.updateSurvey(survey);
+        if (!submissionIngestService.enqueue(submission)) {
+            if (idempotencyKey != null) {
+                submissionKeyService.release(surveyId, idempotencyKey, submission.respondentId());
+            }
+            result.put("success", false);
+            result.put("message", "Too many submissions right now, please retry shortly");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(submissionIngestService.getRetryAfterSeconds()))
+                    .body(result);
+        }
+
+        return accepted(submission.respondentId(), false);
+    }
 
+    private ResponseEntity<Map<String, Object>> accepted(UUID respondentId, boolean replayed) {
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
         result.put("message", "Survey responses submitted successfully");
         result.put("respondentId", respondentId.toString());
 
-        return new ResponseEntity<>(result, HttpStatus.CREATED);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.ACCEPTED);
+        if (replayed) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return response.body(result);
+    }
+
+    private boolean isActive(SurveyDefinition definition) {
+        return definition != null && "active".equals(definition.survey().getStatus());
     }
 }
@@ -21,7 +21,16 @@ public class QuestionController {
     private SurveyService surveyService;
 
     @GetMapping
-    public ResponseEntity<List<Question>> getAllQuestions() {
+    public ResponseEntity<?> getAllQuestions(@RequestParam(required = false) String after,
+                                             @RequestParam(required = false) Integer limit) {
+        // Keyset pagination when either parameter is given, full list otherwise
+        if (after != null || limit != null) {
+            try {
+                return new ResponseEntity<>(questionService.getQuestionsPage(after, limit), HttpStatus.OK);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
         List<Question> questions = questionService.getAllQuestions();
         return new ResponseEntity<>(questions, HttpStatus.OK);
     }
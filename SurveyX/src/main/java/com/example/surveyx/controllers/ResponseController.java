@@ -1,11 +1,20 @@
 package com.example.surveyx.controllers;
 
+import com.example.surveyx.dto.KeysetPage;
+import com.example.surveyx.dto.ResponseView;
 import com.example.surveyx.models.Response;
+import com.example.surveyx.services.ResponseExportService;
 import com.example.surveyx.services.ResponseService;
+import com.example.surveyx.services.SubmissionRateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,15 +25,59 @@ public class ResponseController {
     @Autowired
     private ResponseService responseService;
 
+    @Autowired
+    private ResponseExportService responseExportService;
+
+    @Autowired
+    private SubmissionRateLimiter submissionRateLimiter;
+
     @GetMapping("/survey/{surveyId}")
-    public ResponseEntity<List<Response>> getAllResponsesForSurvey(@PathVariable Long surveyId) {
-        List<Response> responses = responseService.getAllResponsesBySurvey(surveyId);
+    public ResponseEntity<?> getAllResponsesForSurvey(@PathVariable Long surveyId,
+                                                      @RequestParam(required = false) String after,
+                                                      @RequestParam(required = false) Integer limit) {
+        // Keyset pagination when either parameter is given, full list otherwise
+        if (after != null || limit != null) {
+            KeysetPage<ResponseView> page;
+            try {
+                page = responseService.getResponsesPageBySurvey(surveyId, after, limit);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            if (page == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        }
+        List<ResponseView> responses = responseService.getAllResponsesBySurvey(surveyId);
         if (responses == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         return new ResponseEntity<>(responses, HttpStatus.OK);
     }
 
+    @GetMapping("/survey/{surveyId}/export")
+    public ResponseEntity<StreamingResponseBody> exportResponsesForSurvey(
+            @PathVariable Long surveyId,
+            @RequestParam(defaultValue = ResponseExportService.FORMAT_NDJSON) String format) {
+        if (!ResponseExportService.isSupportedFormat(format)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!responseExportService.surveyExists(surveyId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        MediaType contentType = ResponseExportService.FORMAT_CSV.equals(format)
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+
+        StreamingResponseBody body = out -> responseExportService.export(surveyId, format, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"survey-" + surveyId + "-responses." + format + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{responseId}")
     public ResponseEntity<Response> getResponseById(@PathVariable Long responseId) {
         Response response = responseService.getResponseById(responseId);
@@ -35,10 +88,10 @@ public class ResponseController {
     }
 
     @GetMapping("/survey/{surveyId}/respondent/{respondentId}")
-    public ResponseEntity<List<Response>> getResponseByRespondent(
+    public ResponseEntity<List<ResponseView>> getResponseByRespondent(
             @PathVariable Long surveyId,
             @PathVariable String respondentId) {
-        List<Response> responses = responseService.getResponsesByRespondent(
+        List<ResponseView> responses = responseService.getResponsesByRespondent(
                 surveyId, UUID.fromString(respondentId));
         if (responses == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -48,8 +101,16 @@ public class ResponseController {
 
     @PostMapping
     public ResponseEntity<Response> saveResponse(@RequestBody Response response) {
-        Response savedResponse = responseService.saveResponse(response);
-        return new ResponseEntity<>(savedResponse, HttpStatus.CREATED);
+        SubmissionRateLimiter.Rejection rejection = submissionRateLimiter.tryStartWrite();
+        if (rejection != null) {
+            return tooManyRequests(rejection);
+        }
+        try {
+            Response savedResponse = responseService.saveResponse(response);
+            return new ResponseEntity<>(savedResponse, HttpStatus.CREATED);
+        } finally {
+            submissionRateLimiter.endWrite();
+        }
     }
 
     @PostMapping("/survey/{surveyId}")
@@ -57,9 +118,17 @@ public class ResponseController {
             @PathVariable Long surveyId,
             @RequestBody List<Response> responses
     ) {
-        // Process and save all responses for the survey
-        List<Response> savedResponses = responseService.saveResponsesForSurvey(surveyId, responses);
-        return new ResponseEntity<>(savedResponses, HttpStatus.CREATED);
+        SubmissionRateLimiter.Rejection rejection = submissionRateLimiter.tryStartWrite();
+        if (rejection != null) {
+            return tooManyRequests(rejection);
+        }
+        try {
+            // Process and save all responses for the survey
+            List<Response> savedResponses = responseService.saveResponsesForSurvey(surveyId, responses);
+            return new ResponseEntity<>(savedResponses, HttpStatus.CREATED);
+        } finally {
+            submissionRateLimiter.endWrite();
+        }
     }
 
     @DeleteMapping("/{responseId}")
@@ -71,4 +140,10 @@ public class ResponseController {
         responseService.deleteResponse(responseId);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    private static <T> ResponseEntity<T> tooManyRequests(SubmissionRateLimiter.Rejection rejection) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejection.retryAfterSeconds()))
+                .build();
+    }
 }
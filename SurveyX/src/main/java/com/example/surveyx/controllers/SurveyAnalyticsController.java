@@ -1,12 +1,23 @@
 package com.example.surveyx.controllers;
 
+import com.example.surveyx.dto.QuestionStatistics;
+import com.example.surveyx.models.Survey;
 import com.example.surveyx.models.SurveyAnalytics;
+import com.example.surveyx.services.AnalyticsJobService;
+import com.example.surveyx.services.AnswerSketchService;
+import com.example.surveyx.services.AnswerTallyService;
 import com.example.surveyx.services.SurveyAnalyticsService;
+import com.example.surveyx.services.SurveyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/analytics")
 public class SurveyAnalyticsController {
@@ -14,6 +25,18 @@ public class SurveyAnalyticsController {
     @Autowired
     private SurveyAnalyticsService surveyAnalyticsService;
 
+    @Autowired
+    private AnalyticsJobService analyticsJobService;
+
+    @Autowired
+    private AnswerTallyService answerTallyService;
+
+    @Autowired
+    private AnswerSketchService answerSketchService;
+
+    @Autowired
+    private SurveyService surveyService;
+
     @GetMapping("/survey/{surveyId}")
     public ResponseEntity<SurveyAnalytics> getAnalyticsForSurvey(@PathVariable Long surveyId) {
         SurveyAnalytics analytics = surveyAnalyticsService.getAnalyticsForSurvey(surveyId);
@@ -23,13 +46,65 @@ public class SurveyAnalyticsController {
         return new ResponseEntity<>(analytics, HttpStatus.OK);
     }
 
+    // Generation calls the LLM, so it runs as a job; poll the Location for the result
     @PostMapping("/survey/{surveyId}")
-    public ResponseEntity<SurveyAnalytics> generateAnalytics(@PathVariable Long surveyId) {
-        SurveyAnalytics analytics = surveyAnalyticsService.generateAnalytics(surveyId);
-        if (analytics == null) {
+    public ResponseEntity<AnalyticsJobService.AnalyticsJob> generateAnalytics(@PathVariable Long surveyId) {
+        if (surveyService.getSurveyById(surveyId) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        AnalyticsJobService.AnalyticsJob job;
+        try {
+            job = analyticsJobService.submit(surveyId);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/analytics/jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<AnalyticsJobService.AnalyticsJob> getAnalyticsJob(@PathVariable String jobId) {
+        AnalyticsJobService.AnalyticsJob job = analyticsJobService.getJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    @GetMapping("/survey/{surveyId}/tallies")
+    public ResponseEntity<Map<Long, Map<String, Long>>> getTallies(@PathVariable Long surveyId) {
+        if (surveyService.getSurveyById(surveyId) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(answerTallyService.getTallies(surveyId), HttpStatus.OK);
+    }
+
+    @PostMapping("/survey/{surveyId}/tallies/rebuild")
+    public ResponseEntity<Map<Long, Map<String, Long>>> rebuildTallies(@PathVariable Long surveyId) {
+        Survey survey = surveyService.getSurveyById(surveyId);
+        if (survey == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(answerTallyService.rebuild(survey), HttpStatus.OK);
+    }
+
+    // Approximate, from per-question sketches; cost does not grow with the number of responses
+    @GetMapping("/survey/{surveyId}/statistics")
+    public ResponseEntity<List<QuestionStatistics>> getStatistics(@PathVariable Long surveyId) {
+        if (surveyService.getSurveyById(surveyId) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(answerSketchService.getStatistics(surveyId), HttpStatus.OK);
+    }
+
+    @PostMapping("/survey/{surveyId}/statistics/rebuild")
+    public ResponseEntity<List<QuestionStatistics>> rebuildStatistics(@PathVariable Long surveyId) {
+        Survey survey = surveyService.getSurveyById(surveyId);
+        if (survey == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(analytics, HttpStatus.CREATED);
+        return new ResponseEntity<>(answerSketchService.rebuild(survey), HttpStatus.OK);
     }
 
     @DeleteMapping("/{analyticsId}")
@@ -2,12 +2,17 @@ package com.example.surveyx.controllers;
 
 import com.example.surveyx.models.Survey;
 import com.example.surveyx.models.User;
+import com.example.surveyx.services.SurveyPurgeService;
+import com.example.surveyx.services.SurveyLiveService;
 import com.example.surveyx.services.SurveyService;
 import com.example.surveyx.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -22,8 +27,23 @@ public class SurveyController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SurveyPurgeService surveyPurgeService;
+
+    @Autowired
+    private SurveyLiveService surveyLiveService;
+
     @GetMapping
-    public ResponseEntity<List<Survey>> getAllSurveys() {
+    public ResponseEntity<?> getAllSurveys(@RequestParam(required = false) String after,
+                                           @RequestParam(required = false) Integer limit) {
+        // Keyset pagination when either parameter is given, full list otherwise
+        if (after != null || limit != null) {
+            try {
+                return new ResponseEntity<>(surveyService.getSurveysPage(after, limit), HttpStatus.OK);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
         List<Survey> surveys = surveyService.getAllSurveys();
         return new ResponseEntity<>(surveys, HttpStatus.OK);
     }
@@ -37,6 +57,16 @@ public class SurveyController {
         return new ResponseEntity<>(survey, HttpStatus.OK);
     }
 
+    // Server-Sent Events: a snapshot of the response count and tallies, then only what changes
+    @GetMapping(path = "/{surveyId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getLiveUpdates(@PathVariable Long surveyId) {
+        SseEmitter emitter = surveyLiveService.subscribe(surveyId);
+        if (emitter == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+    }
+
     @GetMapping("/link/{surveyLink}")
     public ResponseEntity<Survey> getSurveyByLink(@PathVariable String surveyLink) {
         Survey survey = surveyService.getSurveyByLink(surveyLink);
@@ -73,14 +103,25 @@ public class SurveyController {
         return new ResponseEntity<>(updatedSurvey, HttpStatus.OK);
     }
 
+    // The survey is gone at once, its data is purged in the background; poll the Location for progress
     @DeleteMapping("/{surveyId}")
-    public ResponseEntity<Void> deleteSurvey(@PathVariable Long surveyId) {
-        Survey existingSurvey = surveyService.getSurveyById(surveyId);
-        if (existingSurvey == null) {
+    public ResponseEntity<SurveyPurgeService.PurgeJob> deleteSurvey(@PathVariable Long surveyId) {
+        SurveyPurgeService.PurgeJob job = surveyService.deleteSurvey(surveyId);
+        if (job == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
-        surveyService.deleteSurvey(surveyId);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/surveys/purges/" + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("/purges/{jobId}")
+    public ResponseEntity<SurveyPurgeService.PurgeJob> getPurgeJob(@PathVariable String jobId) {
+        SurveyPurgeService.PurgeJob job = surveyPurgeService.getJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job, HttpStatus.OK);
     }
 
     @PutMapping("/{surveyId}/publish")
@@ -101,6 +142,21 @@ public class SurveyController {
         return new ResponseEntity<>(closedSurvey, HttpStatus.OK);
     }
 
+    // Body {"submissionRateLimit": n} sets public submissions per minute; null restores the default
+    @PutMapping("/{surveyId}/rate-limit")
+    public ResponseEntity<Survey> setSubmissionRateLimit(@PathVariable Long surveyId,
+                                                         @RequestBody Map<String, Integer> body) {
+        Integer perMinute = body.get("submissionRateLimit");
+        if (perMinute != null && perMinute <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Survey survey = surveyService.setSubmissionRateLimit(surveyId, perMinute);
+        if (survey == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(survey, HttpStatus.OK);
+    }
+
     @GetMapping("/{surveyId}/link")
     public ResponseEntity<Map<String, String>> getSurveyLink(@PathVariable Long surveyId) {
         Survey survey = surveyService.getSurveyById(surveyId);
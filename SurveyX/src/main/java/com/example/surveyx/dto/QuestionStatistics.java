@@ -0,0 +1,14 @@
+package com.example.surveyx.dto;
+
+import java.util.List;
+
+/**
+ * Approximate statistics of one question's answers, read from its sketches. {@code median}
+ * and {@code p90} are set for rating questions, {@code topTerms} for free-text questions.
+ */
+public record QuestionStatistics(Long questionId, long answerCount, long distinctAnswers, Double median, Double p90,
+                                 List<TermCount> topTerms) {
+
+    public record TermCount(String term, long count) {
+    }
+}
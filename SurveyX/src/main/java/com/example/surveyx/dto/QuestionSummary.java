@@ -0,0 +1,7 @@
+package com.example.surveyx.dto;
+
+/**
+ * Scalar columns of a question, without its survey graph or answer options.
+ */
+public record QuestionSummary(Long questionId, String questionText, String questionType) {
+}
@@ -0,0 +1,27 @@
+package com.example.surveyx.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read model of a single answer, built directly by a JPQL constructor expression so
+ * list, export and analytics reads never materialize Response/Survey/Question
+ * entities. Keeps the JSON shape of {@code Response} that clients already read
+ * ({@code question.questionId}, {@code question.questionText}, {@code survey.surveyId}).
+ */
+public record ResponseView(Long responseId, SurveyRef survey, UUID respondentId, QuestionRef question,
+                           String answerText, LocalDateTime submittedAt) {
+
+    public record SurveyRef(Long surveyId) {
+    }
+
+    public record QuestionRef(Long questionId, String questionText) {
+    }
+
+    public ResponseView(Long responseId, Long surveyId, UUID respondentId, Long questionId, String questionText,
+                        String answerText, LocalDateTime submittedAt) {
+        this(responseId, new SurveyRef(surveyId), respondentId,
+                questionId == null ? null : new QuestionRef(questionId, questionText),
+                answerText, submittedAt);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.surveyx.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Highest response id and submission time of a survey plus its response count, read in one aggregate query.
+ */
+public record ResponseWatermark(Long lastResponseId, LocalDateTime lastSubmittedAt, long responseCount) {
+}
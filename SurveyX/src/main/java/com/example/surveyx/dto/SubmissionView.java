@@ -0,0 +1,31 @@
+package com.example.surveyx.dto;
+
+import com.example.surveyx.models.Submission;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Read model of a submission-layout row, exploded on demand into the per-answer
+ * {@link ResponseView}s the response APIs return.
+ */
+public record SubmissionView(Long submissionId, Long surveyId, UUID respondentId, LocalDateTime submittedAt,
+                             Map<Long, String> answers) {
+
+    /**
+     * @param questionTexts question id to text; answers to unknown questions get a null text
+     * @param after         only answers with a higher response id are returned
+     */
+    public List<ResponseView> toResponseViews(Map<Long, String> questionTexts, long after) {
+        List<ResponseView> views = new ArrayList<>(answers.size());
+        int slot = 0;
+        for (Map.Entry<Long, String> answer : new TreeMap<>(answers).entrySet()) {
+            long responseId = Submission.answerId(submissionId, slot++);
+            if (answer.getValue() != null && responseId > after) {
+                views.add(new ResponseView(responseId, surveyId, respondentId, answer.getKey(),
+                        questionTexts.get(answer.getKey()), answer.getValue(), submittedAt));
+            }
+        }
+        return views;
+    }
+}
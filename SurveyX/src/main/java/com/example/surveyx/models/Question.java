@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
@@ -13,8 +16,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Question {
+    // Sequence-backed like Response, so saving a survey's questions is batched too
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "questions_seq")
+    @SequenceGenerator(name = "questions_seq", sequenceName = "questions_seq", allocationSize = 50)
     @Column(name = "question_id")
     private Long questionId;
 
@@ -28,9 +33,10 @@ public class Question {
     @Column(name = "question_type", nullable = false)
     private String questionType;
 
+    // Ordered JSON array on the question row, so loading questions needs no select per question
     @Column(name = "answer_options")
-    @ElementCollection
-    private List<String> answerOptions;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> answerOptions = new ArrayList<>();
 
     @Column(name = "required")
     private Boolean required = true;
@@ -0,0 +1,40 @@
+package com.example.surveyx.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "question_option_tallies")
+@IdClass(QuestionOptionTally.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionOptionTally {
+    @Id
+    @Column(name = "survey_id")
+    private Long surveyId;
+
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+
+    @Id
+    @Column(name = "option_value")
+    private String optionValue;
+
+    @Column(name = "answer_count", nullable = false)
+    private Long answerCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long surveyId;
+        private Long questionId;
+        private String optionValue;
+    }
+}
@@ -13,8 +13,10 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Response {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts; ids come in blocks of 50
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "responses_seq")
+    @SequenceGenerator(name = "responses_seq", sequenceName = "responses_seq", allocationSize = 50)
     @Column(name = "response_id")
     private Long responseId;
 
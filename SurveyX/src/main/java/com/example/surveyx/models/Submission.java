@@ -0,0 +1,97 @@
+package com.example.surveyx.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * All answers of one respondent in a single row, keyed by question id.
+ *
+ * Each answer is still addressable on its own through a synthetic response id built
+ * from the submission id and the answer's slot, its position among the keys in
+ * question id order. Ids start at {@link #ANSWER_ID_OFFSET}, above anything the
+ * responses sequence hands out and still exact as a JavaScript number. A deleted
+ * answer is kept as a null value so the slots of the others do not shift.
+ */
+@Entity
+@Table(name = "submissions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Submission {
+    public static final long ANSWER_ID_OFFSET = 1L << 52;
+
+    private static final int SLOT_BITS = 12;
+
+    public static final int MAX_ANSWERS = 1 << SLOT_BITS;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submissions_seq")
+    @SequenceGenerator(name = "submissions_seq", sequenceName = "submissions_seq", allocationSize = 50)
+    @Column(name = "submission_id")
+    private Long submissionId;
+
+    @Column(name = "survey_id", nullable = false)
+    private Long surveyId;
+
+    @Column(name = "respondent_id")
+    private UUID respondentId;
+
+    @Column(name = "submitted_at")
+    private LocalDateTime submittedAt;
+
+    @Column(name = "answers", nullable = false)
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<Long, String> answers = new TreeMap<>();
+
+    // Non-null answers, so counts and watermarks never need to read the JSON
+    @Column(name = "answer_count", nullable = false)
+    private Integer answerCount;
+
+    /**
+     * Builds the answers map of a submission from parallel lists of question ids and answer
+     * texts. Unanswered (null) answers are left out.
+     *
+     * @return the map, or null if the answers do not fit one submission: a missing or
+     *         repeated question, more than {@link #MAX_ANSWERS} questions, or no answer at all
+     */
+    public static Map<Long, String> answerMap(List<Long> questionIds, List<String> answerTexts) {
+        if (questionIds.size() > MAX_ANSWERS) {
+            return null;
+        }
+        Set<Long> seen = new HashSet<>();
+        Map<Long, String> answers = new TreeMap<>();
+        for (int i = 0; i < questionIds.size(); i++) {
+            Long questionId = questionIds.get(i);
+            if (questionId == null || !seen.add(questionId)) {
+                return null;
+            }
+            if (answerTexts.get(i) != null) {
+                answers.put(questionId, answerTexts.get(i));
+            }
+        }
+        return answers.isEmpty() ? null : answers;
+    }
+
+    public static long answerId(long submissionId, int slot) {
+        return ANSWER_ID_OFFSET + (submissionId << SLOT_BITS) + slot;
+    }
+
+    public static boolean isAnswerId(long responseId) {
+        return responseId >= ANSWER_ID_OFFSET;
+    }
+
+    public static long submissionIdOf(long answerId) {
+        return (answerId - ANSWER_ID_OFFSET) >>> SLOT_BITS;
+    }
+
+    public static int slotOf(long answerId) {
+        return (int) ((answerId - ANSWER_ID_OFFSET) & (MAX_ANSWERS - 1));
+    }
+}
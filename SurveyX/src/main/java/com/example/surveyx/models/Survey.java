@@ -1,5 +1,6 @@
 package com.example.surveyx.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -39,12 +40,27 @@ public class Survey {
     @Column(name = "status")
     private String status = "draft";
 
-    @Column(name = "response_count")
+    // Only ever changed through delta updates, see ResponseCountService
+    @Column(name = "response_count", updatable = false)
     private Integer responseCount = 0;
 
+    // Increments not flushed to response_count yet, set by ResponseCountService#applyPending
+    @Transient
+    @JsonIgnore
+    private long pendingResponseCount;
+
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Public submissions per minute, null for the default; only changed through SurveyService#setSubmissionRateLimit
+    @Column(name = "submission_rate_limit", updatable = false)
+    private Integer submissionRateLimit;
+
     @Transient
     private String clickableLink;
+
+    // Hibernate reads and writes the field, so only callers see the pending increments
+    public Integer getResponseCount() {
+        return responseCount == null ? null : (int) (responseCount + pendingResponseCount);
+    }
 }
@@ -27,6 +27,23 @@ public class SurveyAnalytics {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Watermark of the responses this analysis was computed from; null after a failed run
+    @Column(name = "last_response_id")
+    private Long lastResponseId;
+
+    @Column(name = "last_response_at")
+    private LocalDateTime lastResponseAt;
+
+    @Column(name = "analyzed_response_count")
+    private Long analyzedResponseCount;
+
+    @Column(name = "input_hash", length = 64)
+    private String inputHash;
+
+    // Incremental folds since the last full run
+    @Column(name = "incremental_runs")
+    private Integer incrementalRuns = 0;
+
     public Long getAnalyticsId() {
         return analyticsId;
     }
@@ -66,4 +83,44 @@ public class SurveyAnalytics {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Long getLastResponseId() {
+        return lastResponseId;
+    }
+
+    public void setLastResponseId(Long lastResponseId) {
+        this.lastResponseId = lastResponseId;
+    }
+
+    public LocalDateTime getLastResponseAt() {
+        return lastResponseAt;
+    }
+
+    public void setLastResponseAt(LocalDateTime lastResponseAt) {
+        this.lastResponseAt = lastResponseAt;
+    }
+
+    public Long getAnalyzedResponseCount() {
+        return analyzedResponseCount;
+    }
+
+    public void setAnalyzedResponseCount(Long analyzedResponseCount) {
+        this.analyzedResponseCount = analyzedResponseCount;
+    }
+
+    public String getInputHash() {
+        return inputHash;
+    }
+
+    public void setInputHash(String inputHash) {
+        this.inputHash = inputHash;
+    }
+
+    public int getIncrementalRuns() {
+        return incrementalRuns == null ? 0 : incrementalRuns;
+    }
+
+    public void setIncrementalRuns(Integer incrementalRuns) {
+        this.incrementalRuns = incrementalRuns;
+    }
 }
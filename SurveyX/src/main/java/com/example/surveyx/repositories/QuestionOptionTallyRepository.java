@@ -0,0 +1,18 @@
+package com.example.surveyx.repositories;
+
+import com.example.surveyx.models.QuestionOptionTally;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface QuestionOptionTallyRepository extends JpaRepository<QuestionOptionTally, QuestionOptionTally.Key> {
+    List<QuestionOptionTally> findBySurveyId(Long surveyId);
+
+    @Modifying
+    @Query("delete from QuestionOptionTally t where t.surveyId = :surveyId")
+    int deleteAllBySurveyId(@Param("surveyId") Long surveyId);
+}
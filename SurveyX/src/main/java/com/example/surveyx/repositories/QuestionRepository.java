@@ -1,9 +1,13 @@
 package com.example.surveyx.repositories;
 
 
+import com.example.surveyx.dto.QuestionSummary;
 import com.example.surveyx.models.Question;
 import com.example.surveyx.models.Survey;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -11,4 +15,9 @@ import java.util.List;
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<Question> findBySurvey(Survey survey);
     void deleteBySurvey(Survey survey);
+    List<Question> findByQuestionIdGreaterThanOrderByQuestionIdAsc(Long questionId, Limit limit);
+
+    @Query("select new com.example.surveyx.dto.QuestionSummary(q.questionId, q.questionText, q.questionType) " +
+            "from Question q where q.survey.surveyId = :surveyId order by q.questionId")
+    List<QuestionSummary> findSummariesBySurveyId(@Param("surveyId") Long surveyId);
 }
@@ -1,16 +1,59 @@
 package com.example.surveyx.repositories;
 
 
+import com.example.surveyx.dto.ResponseView;
+import com.example.surveyx.dto.ResponseWatermark;
 import com.example.surveyx.models.Response;
 import com.example.surveyx.models.Survey;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface ResponseRepository extends JpaRepository<Response, Long> {
+    String SELECT_VIEW = "select new com.example.surveyx.dto.ResponseView(r.responseId, r.survey.surveyId, " +
+            "r.respondentId, q.questionId, q.questionText, r.answerText, r.submittedAt) " +
+            "from Response r left join r.question q ";
+
     List<Response> findBySurvey(Survey survey);
     List<Response> findBySurveyAndRespondentId(Survey survey, UUID respondentId);
     void deleteBySurvey(Survey survey);
+
+    @Query(SELECT_VIEW + "where r.survey.surveyId = :surveyId order by r.responseId")
+    List<ResponseView> findViewsBySurveyId(@Param("surveyId") Long surveyId);
+
+    @Query(SELECT_VIEW + "where r.survey.surveyId = :surveyId and r.respondentId = :respondentId order by r.responseId")
+    List<ResponseView> findViewsBySurveyIdAndRespondentId(@Param("surveyId") Long surveyId,
+                                                          @Param("respondentId") UUID respondentId);
+
+    @Query(SELECT_VIEW + "where r.survey.surveyId = :surveyId and r.responseId > :after order by r.responseId")
+    List<ResponseView> findViewsBySurveyIdAfter(@Param("surveyId") Long surveyId, @Param("after") Long after);
+
+    @Query(SELECT_VIEW + "where r.survey.surveyId = :surveyId and r.responseId > :after order by r.responseId")
+    List<ResponseView> findViewPageBySurveyId(@Param("surveyId") Long surveyId, @Param("after") Long after, Limit limit);
+
+    @Query("select new com.example.surveyx.dto.ResponseWatermark(max(r.responseId), max(r.submittedAt), count(r)) " +
+            "from Response r where r.survey.surveyId = :surveyId")
+    ResponseWatermark findWatermarkBySurveyId(@Param("surveyId") Long surveyId);
+
+    @Query("select count(r) from Response r where r.survey.surveyId = :surveyId and r.responseId > :after")
+    long countBySurveyIdAfter(@Param("surveyId") Long surveyId, @Param("after") Long after);
+
+    // Forward-only cursor for exports; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_VIEW + "where r.survey.surveyId = :surveyId order by r.respondentId, r.responseId")
+    Stream<ResponseView> streamViewsBySurveyId(@Param("surveyId") Long surveyId);
 }
@@ -0,0 +1,55 @@
+package com.example.surveyx.repositories;
+
+import com.example.surveyx.dto.ResponseWatermark;
+import com.example.surveyx.dto.SubmissionView;
+import com.example.surveyx.models.Submission;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@Repository
+public interface SubmissionRepository extends JpaRepository<Submission, Long> {
+    String SELECT_VIEW = "select new com.example.surveyx.dto.SubmissionView(s.submissionId, s.surveyId, " +
+            "s.respondentId, s.submittedAt, s.answers) from Submission s ";
+
+    @Query(SELECT_VIEW + "where s.surveyId = :surveyId order by s.submissionId")
+    List<SubmissionView> findViewsBySurveyId(@Param("surveyId") Long surveyId);
+
+    @Query(SELECT_VIEW + "where s.surveyId = :surveyId and s.respondentId = :respondentId order by s.submissionId")
+    List<SubmissionView> findViewsBySurveyIdAndRespondentId(@Param("surveyId") Long surveyId,
+                                                            @Param("respondentId") UUID respondentId);
+
+    @Query(SELECT_VIEW + "where s.surveyId = :surveyId and s.submissionId >= :from order by s.submissionId")
+    List<SubmissionView> findViewsBySurveyIdFrom(@Param("surveyId") Long surveyId, @Param("from") Long from);
+
+    @Query(SELECT_VIEW + "where s.surveyId = :surveyId and s.submissionId >= :from order by s.submissionId")
+    List<SubmissionView> findViewPageBySurveyId(@Param("surveyId") Long surveyId, @Param("from") Long from, Limit limit);
+
+    // lastResponseId is the highest submission id; the count is of answers, not submissions
+    @Query("select new com.example.surveyx.dto.ResponseWatermark(max(s.submissionId), max(s.submittedAt), " +
+            "coalesce(sum(s.answerCount), 0L)) from Submission s where s.surveyId = :surveyId")
+    ResponseWatermark findWatermarkBySurveyId(@Param("surveyId") Long surveyId);
+
+    @Query("select coalesce(sum(s.answerCount), 0L) from Submission s " +
+            "where s.surveyId = :surveyId and s.submissionId > :after")
+    long countAnswersBySurveyIdAfter(@Param("surveyId") Long surveyId, @Param("after") Long after);
+
+    // Forward-only cursor for exports and tally rebuilds; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_VIEW + "where s.surveyId = :surveyId order by s.submissionId")
+    Stream<SubmissionView> streamViewsBySurveyId(@Param("surveyId") Long surveyId);
+}
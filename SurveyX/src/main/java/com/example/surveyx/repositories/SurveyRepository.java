@@ -2,6 +2,8 @@ package com.example.surveyx.repositories;
 
 import com.example.surveyx.models.Survey;
 import com.example.surveyx.models.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
@@ -9,5 +11,8 @@ import java.util.List;
 @Repository
 public interface SurveyRepository extends JpaRepository<Survey, Long> {
     List<Survey> findByCreator(User creator);
+    // Creator in the same select; with the answer options inline, a survey and its questions load in two queries
+    @EntityGraph(attributePaths = "creator")
     Survey findBySurveyLink(String surveyLink);
+    List<Survey> findBySurveyIdGreaterThanOrderBySurveyIdAsc(Long surveyId, Limit limit);
 }
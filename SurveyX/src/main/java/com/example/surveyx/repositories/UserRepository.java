@@ -1,12 +1,15 @@
 package com.example.surveyx.repositories;
 
 import com.example.surveyx.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     User findByUsername(String username);
     User findByEmail(String email);
+    List<User> findByUserIdGreaterThanOrderByUserIdAsc(Long userId, Limit limit);
 }
 
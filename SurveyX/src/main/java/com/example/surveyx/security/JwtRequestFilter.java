@@ -1,5 +1,6 @@
 package com.example.surveyx.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,28 +24,36 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7);
 
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtils.extractUsername(jwt);
-            } catch (Exception e) {
-                logger.error("Error extracting username from token", e);
+            // A cached entry means the signature was verified and the user loaded before
+            VerifiedTokenCache.VerifiedToken verified = tokenCache.get(jwt);
+            if (verified == null) {
+                Claims claims = null;
+                try {
+                    claims = jwtUtils.extractAllClaims(jwt);
+                } catch (Exception e) {
+                    logger.error("Error extracting username from token", e);
+                }
+                if (claims != null && claims.getSubject() != null) {
+                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(claims.getSubject());
+                    verified = tokenCache.put(jwt, claims.getSubject(), claims.getExpiration(), userDetails);
+                }
             }
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
 
-            if (jwtUtils.validateToken(jwt, userDetails)) {
+            if (verified != null && !verified.isExpired()) {
+                UserDetails userDetails = verified.userDetails();
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -0,0 +1,111 @@
+package com.example.surveyx.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * Remembers tokens whose signature has already been verified, together with the
+ * resolved principal, keyed by a SHA-256 hash of the token.
+ *
+ * An entry lives until the earlier of the token's own expiry and the configured TTL
+ * cap, and is re-checked against the expiry on every lookup. {@link #evictUser} drops
+ * all entries of a user whose account changed.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.token-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${app.auth.token-cache.ttl:5m}")
+    private Duration ttl;
+
+    private Cache<String, VerifiedToken> cache;
+
+    public record VerifiedToken(String username, Date expiration, UserDetails userDetails) {
+
+        public boolean isExpired() {
+            return !expiration.after(new Date());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long untilExpiry = token.expiration().getTime() - System.currentTimeMillis();
+                        return Math.max(0, Math.min(ttl.toNanos(), Duration.ofMillis(untilExpiry).toNanos()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    /**
+     * @return the cached verification result, or null if the token has to be verified
+     */
+    public VerifiedToken get(String token) {
+        String key = hash(token);
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified != null && verified.isExpired()) {
+            cache.invalidate(key);
+            return null;
+        }
+        return verified;
+    }
+
+    public VerifiedToken put(String token, String username, Date expiration, UserDetails userDetails) {
+        VerifiedToken verified = new VerifiedToken(username, expiration, userDetails);
+        if (!verified.isExpired()) {
+            cache.put(hash(token), verified);
+        }
+        return verified;
+    }
+
+    public void evictUser(String username) {
+        if (username != null) {
+            cache.asMap().values().removeIf(verified -> username.equals(verified.username()));
+        }
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.config.WorkerThreads;
+import com.example.surveyx.models.SurveyAnalytics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Runs LLM analytics generation off the request threads.
+ *
+ * Jobs run on a small bounded pool so slow LLM calls can never occupy more than
+ * {@code max-concurrency} threads. At most one job per survey is queued or running at
+ * a time; further submissions for that survey return the in-flight job. A job whose
+ * generation fails is reported as {@code failed} with the error, and the survey keeps
+ * its previous analysis. Finished jobs stay queryable for {@code retention}.
+ */
+@Service
+public class AnalyticsJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsJobService.class);
+
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_SUCCEEDED = "succeeded";
+    public static final String STATUS_FAILED = "failed";
+
+    @Autowired
+    private SurveyAnalyticsService surveyAnalyticsService;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.analytics.jobs.max-concurrency:2}")
+    private int maxConcurrency;
+
+    @Value("${app.analytics.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.analytics.jobs.retention:1h}")
+    private Duration retention;
+
+    private ThreadPoolExecutor executor;
+
+    private Cache<String, AnalyticsJob> jobs;
+
+    private final Map<Long, AnalyticsJob> inFlightBySurvey = new ConcurrentHashMap<>();
+
+    public static class AnalyticsJob {
+        private final String jobId;
+        private final Long surveyId;
+        private final LocalDateTime submittedAt;
+        private volatile String status = STATUS_QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile SurveyAnalytics analytics;
+        private volatile String error;
+
+        private AnalyticsJob(Long surveyId) {
+            this.jobId = UUID.randomUUID().toString();
+            this.surveyId = surveyId;
+            this.submittedAt = LocalDateTime.now();
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public Long getSurveyId() {
+            return surveyId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public LocalDateTime getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public SurveyAnalytics getAnalytics() {
+            return analytics;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), workerThreads.factory("analytics-job-"));
+
+        jobs = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the new job, or the job already queued or running for this survey
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public AnalyticsJob submit(Long surveyId) {
+        return inFlightBySurvey.computeIfAbsent(surveyId, id -> {
+            AnalyticsJob job = new AnalyticsJob(id);
+            executor.execute(() -> run(job));
+            jobs.put(job.jobId, job);
+            return job;
+        });
+    }
+
+    /**
+     * @return the job, or null if it is unknown or has expired
+     */
+    public AnalyticsJob getJob(String jobId) {
+        return jobId == null ? null : jobs.getIfPresent(jobId);
+    }
+
+    private void run(AnalyticsJob job) {
+        job.startedAt = LocalDateTime.now();
+        job.status = STATUS_RUNNING;
+        try {
+            job.analytics = surveyAnalyticsService.generateAnalytics(job.surveyId);
+            job.status = STATUS_SUCCEEDED;
+        } catch (RuntimeException e) {
+            logger.error("Analytics job {} for survey {} failed", job.jobId, job.surveyId, e);
+            job.error = e.getMessage();
+            job.status = STATUS_FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            inFlightBySurvey.remove(job.surveyId, job);
+            // Refresh the retention window from completion
+            jobs.put(job.jobId, job);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.dto.QuestionStatistics;
+import org.apache.datasketches.common.ArrayOfStringsSerDe;
+import org.apache.datasketches.frequencies.ErrorType;
+import org.apache.datasketches.frequencies.ItemsSketch;
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.TgtHllType;
+import org.apache.datasketches.hll.Union;
+import org.apache.datasketches.memory.Memory;
+import org.apache.datasketches.tdigest.TDigestDouble;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Mergeable summary of the answers to one question: an HLL sketch of distinct answers,
+ * a t-digest of rating answers and a frequent-items sketch of the terms in free-text
+ * answers. Each part merges with the same part built on another node or in another
+ * flush, and the serialized form stays at a few kilobytes however many answers it covers.
+ * Not thread-safe.
+ */
+public final class AnswerSketch {
+
+    // 2^12 registers, about 1.6% relative error on the distinct count
+    private static final int HLL_LG_K = 12;
+
+    private static final short DIGEST_K = 100;
+
+    // Tracks at most 0.75 * 128 terms; any term above ~1/96 of all terms is guaranteed to be among them
+    private static final int TERMS_MAX_MAP_SIZE = 128;
+
+    private static final ArrayOfStringsSerDe TERMS_SERDE = new ArrayOfStringsSerDe();
+
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int MIN_TERM_LENGTH = 3;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "are", "but", "not", "you", "all", "any", "can", "had", "her", "was", "one",
+            "our", "out", "has", "have", "with", "this", "that", "from", "they", "were", "been", "very",
+            "would", "could", "there", "their", "what", "when", "which", "also", "just", "more", "some");
+
+    private long answerCount;
+    private HllSketch distinct;
+    private TDigestDouble numeric;
+    private ItemsSketch<String> terms;
+
+    public AnswerSketch() {
+        distinct = new HllSketch(HLL_LG_K);
+    }
+
+    private AnswerSketch(long answerCount, HllSketch distinct, TDigestDouble numeric, ItemsSketch<String> terms) {
+        this.answerCount = answerCount;
+        this.distinct = distinct;
+        this.numeric = numeric;
+        this.terms = terms;
+    }
+
+    public static AnswerSketch fromBytes(long answerCount, byte[] distinct, byte[] numeric, byte[] terms) {
+        return new AnswerSketch(answerCount,
+                HllSketch.heapify(distinct),
+                numeric == null ? null : TDigestDouble.heapify(Memory.wrap(numeric)),
+                terms == null ? null : ItemsSketch.getInstance(Memory.wrap(terms), TERMS_SERDE));
+    }
+
+    public void add(String questionType, String answerText) {
+        if (answerText == null || answerText.isBlank()) {
+            return;
+        }
+        String answer = answerText.trim();
+        answerCount++;
+        distinct.update(answer);
+
+        if ("rating".equals(questionType)) {
+            try {
+                double value = Double.parseDouble(answer);
+                if (Double.isFinite(value)) {
+                    numeric().update(value);
+                }
+            } catch (NumberFormatException e) {
+                // Not a number, only counted as a distinct answer
+            }
+        } else if ("text".equals(questionType)) {
+            for (String term : TERM_SEPARATOR.split(answer.toLowerCase(Locale.ROOT))) {
+                if (term.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(term)) {
+                    terms().update(term);
+                }
+            }
+        }
+    }
+
+    public void merge(AnswerSketch other) {
+        answerCount += other.answerCount;
+
+        Union union = new Union(HLL_LG_K);
+        union.update(distinct);
+        union.update(other.distinct);
+        distinct = union.getResult(TgtHllType.HLL_4);
+
+        if (other.numeric != null) {
+            numeric().merge(other.numeric);
+        }
+        if (other.terms != null) {
+            terms().merge(other.terms);
+        }
+    }
+
+    public QuestionStatistics toStatistics(Long questionId, int topTermLimit) {
+        boolean hasNumeric = numeric != null && !numeric.isEmpty();
+        return new QuestionStatistics(questionId, answerCount, Math.round(distinct.getEstimate()),
+                hasNumeric ? numeric.getQuantile(0.5) : null,
+                hasNumeric ? numeric.getQuantile(0.9) : null,
+                topTerms(topTermLimit));
+    }
+
+    public long getAnswerCount() {
+        return answerCount;
+    }
+
+    public byte[] distinctBytes() {
+        return distinct.toCompactByteArray();
+    }
+
+    public byte[] numericBytes() {
+        return numeric == null ? null : numeric.toByteArray();
+    }
+
+    public byte[] termsBytes() {
+        return terms == null ? null : terms.toByteArray(TERMS_SERDE);
+    }
+
+    private List<QuestionStatistics.TermCount> topTerms(int limit) {
+        if (terms == null || terms.isEmpty()) {
+            return null;
+        }
+        List<QuestionStatistics.TermCount> top = new ArrayList<>(limit);
+        for (ItemsSketch.Row<String> row : terms.getFrequentItems(ErrorType.NO_FALSE_NEGATIVES)) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(new QuestionStatistics.TermCount(row.getItem(), row.getEstimate()));
+        }
+        return top;
+    }
+
+    private TDigestDouble numeric() {
+        if (numeric == null) {
+            numeric = new TDigestDouble(DIGEST_K);
+        }
+        return numeric;
+    }
+
+    private ItemsSketch<String> terms() {
+        if (terms == null) {
+            terms = new ItemsSketch<>(TERMS_MAX_MAP_SIZE);
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.dto.QuestionStatistics;
+import com.example.surveyx.dto.QuestionSummary;
+import com.example.surveyx.dto.ResponseView;
+import com.example.surveyx.dto.SubmissionView;
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.ResponseRepository;
+import com.example.surveyx.repositories.SubmissionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Approximate per-question statistics (distinct answers, rating median and p90, top
+ * free-text terms) kept as {@link AnswerSketch}es.
+ *
+ * Ingest paths call {@link #record} for every stored answer, which updates an in-memory
+ * delta sketch. A scheduled flush merges each delta into the stored sketch under a row
+ * lock, so any number of nodes can feed the same question. Reads merge the stored
+ * sketches with the unflushed deltas and cost O(questions) whatever the response count.
+ * Sketches cannot subtract, so deleted answers stay counted until {@link #rebuild}.
+ */
+@Service
+public class AnswerSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerSketchService.class);
+
+    private static final String SELECT_SKETCHES_SQL =
+            "SELECT question_id, answer_count, distinct_answers, numeric_answers, top_terms " +
+                    "FROM question_sketches WHERE survey_id = ?";
+
+    private static final String LOCK_SKETCH_SQL =
+            "SELECT question_id, answer_count, distinct_answers, numeric_answers, top_terms " +
+                    "FROM question_sketches WHERE survey_id = ? AND question_id = ? FOR UPDATE";
+
+    private static final String UPDATE_SKETCH_SQL =
+            "UPDATE question_sketches SET answer_count = ?, distinct_answers = ?, numeric_answers = ?, top_terms = ? " +
+                    "WHERE survey_id = ? AND question_id = ?";
+
+    private static final String INSERT_SKETCH_SQL =
+            "INSERT INTO question_sketches " +
+                    "(answer_count, distinct_answers, numeric_answers, top_terms, survey_id, question_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_SKETCHES_SQL =
+            "DELETE FROM question_sketches WHERE survey_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Value("${app.sketches.top-terms:10}")
+    private int topTerms;
+
+    // survey id -> question id -> delta not yet merged into the stored sketch
+    private final Map<Long, Map<Long, AnswerSketch>> pending = new ConcurrentHashMap<>();
+
+    public void record(Long surveyId, Question question, String answerText) {
+        if (surveyId == null || question == null || answerText == null || answerText.isBlank()) {
+            return;
+        }
+        // compute() keeps the update atomic against the flush taking the delta away
+        pending.computeIfAbsent(surveyId, id -> new ConcurrentHashMap<>())
+                .compute(question.getQuestionId(), (id, sketch) -> {
+                    AnswerSketch delta = sketch != null ? sketch : new AnswerSketch();
+                    delta.add(question.getQuestionType(), answerText);
+                    return delta;
+                });
+    }
+
+    /**
+     * @return statistics per question that has answers, in question id order
+     */
+    public List<QuestionStatistics> getStatistics(Long surveyId) {
+        Map<Long, AnswerSketch> sketches = new TreeMap<>();
+        jdbcTemplate.query(SELECT_SKETCHES_SQL, rs -> {
+            sketches.put(rs.getLong("question_id"), read(rs));
+        }, surveyId);
+
+        Map<Long, AnswerSketch> surveyPending = pending.get(surveyId);
+        if (surveyPending != null) {
+            for (Long questionId : surveyPending.keySet()) {
+                surveyPending.computeIfPresent(questionId, (id, delta) -> {
+                    sketches.computeIfAbsent(id, key -> new AnswerSketch()).merge(delta);
+                    return delta;
+                });
+            }
+        }
+
+        List<QuestionStatistics> statistics = new ArrayList<>(sketches.size());
+        sketches.forEach((questionId, sketch) -> statistics.add(sketch.toStatistics(questionId, topTerms)));
+        return statistics;
+    }
+
+    /**
+     * Recomputes a survey's sketches from its stored responses, for backfill or after
+     * deletions. Answers recorded while the rebuild runs may be counted twice or not at
+     * all, so run it when the survey is quiet.
+     */
+    public List<QuestionStatistics> rebuild(Survey survey) {
+        Long surveyId = survey.getSurveyId();
+        Map<Long, String> questionTypes = new HashMap<>();
+        for (QuestionSummary question : questionRepository.findSummariesBySurveyId(surveyId)) {
+            questionTypes.put(question.questionId(), question.questionType());
+        }
+
+        // Replaced by the rebuilt sketches once they commit; put back if the rebuild fails
+        Map<Long, AnswerSketch> discarded = pending.remove(surveyId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_SKETCHES_SQL, surveyId);
+
+                Map<Long, AnswerSketch> sketches = new HashMap<>();
+                try (Stream<ResponseView> responses = responseRepository.streamViewsBySurveyId(surveyId)) {
+                    responses.forEach(response -> {
+                        if (response.question() != null) {
+                            add(sketches, questionTypes, response.question().questionId(), response.answerText());
+                        }
+                    });
+                }
+                try (Stream<SubmissionView> submissions = submissionRepository.streamViewsBySurveyId(surveyId)) {
+                    submissions.forEach(submission -> submission.answers().forEach((questionId, answerText) ->
+                            add(sketches, questionTypes, questionId, answerText)));
+                }
+
+                List<Object[]> rows = new ArrayList<>(sketches.size());
+                sketches.forEach((questionId, sketch) -> {
+                    if (sketch.getAnswerCount() > 0) {
+                        rows.add(columns(sketch, surveyId, questionId));
+                    }
+                });
+                jdbcTemplate.batchUpdate(INSERT_SKETCH_SQL, rows);
+            });
+        } catch (RuntimeException e) {
+            if (discarded != null) {
+                Map<Long, AnswerSketch> surveyPending = pending.computeIfAbsent(surveyId, id -> new ConcurrentHashMap<>());
+                discarded.forEach((questionId, delta) -> surveyPending.merge(questionId, delta, (current, restored) -> {
+                    current.merge(restored);
+                    return current;
+                }));
+            }
+            throw e;
+        }
+
+        return getStatistics(surveyId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.sketches.flush-interval-ms:5000}")
+    public void flush() {
+        Map<Long, Map<Long, AnswerSketch>> deltas = new HashMap<>();
+        pending.forEach((surveyId, surveyPending) -> {
+            for (Long questionId : surveyPending.keySet()) {
+                AnswerSketch delta = surveyPending.remove(questionId);
+                if (delta != null) {
+                    deltas.computeIfAbsent(surveyId, id -> new HashMap<>()).put(questionId, delta);
+                }
+            }
+        });
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach((surveyId, questions) ->
+                    questions.forEach((questionId, delta) -> mergeIntoStored(surveyId, questionId, delta))));
+        } catch (RuntimeException e) {
+            // Typically another node inserted the same question first; the deltas go back for the next tick
+            logger.error("Failed to flush answer sketches for {} surveys", deltas.size(), e);
+            deltas.forEach((surveyId, questions) -> {
+                Map<Long, AnswerSketch> surveyPending = pending.computeIfAbsent(surveyId, id -> new ConcurrentHashMap<>());
+                questions.forEach((questionId, delta) -> surveyPending.merge(questionId, delta, (current, restored) -> {
+                    current.merge(restored);
+                    return current;
+                }));
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void mergeIntoStored(Long surveyId, Long questionId, AnswerSketch delta) {
+        List<AnswerSketch> stored = jdbcTemplate.query(LOCK_SKETCH_SQL, (rs, rowNum) -> read(rs), surveyId, questionId);
+        if (stored.isEmpty()) {
+            jdbcTemplate.update(INSERT_SKETCH_SQL, columns(delta, surveyId, questionId));
+        } else {
+            AnswerSketch sketch = stored.get(0);
+            sketch.merge(delta);
+            jdbcTemplate.update(UPDATE_SKETCH_SQL, columns(sketch, surveyId, questionId));
+        }
+    }
+
+    private static void add(Map<Long, AnswerSketch> sketches, Map<Long, String> questionTypes, Long questionId,
+                            String answerText) {
+        if (answerText != null && !answerText.isBlank()) {
+            sketches.computeIfAbsent(questionId, id -> new AnswerSketch()).add(questionTypes.get(questionId), answerText);
+        }
+    }
+
+    // Parameter order shared by INSERT_SKETCH_SQL and UPDATE_SKETCH_SQL
+    private static Object[] columns(AnswerSketch sketch, Long surveyId, Long questionId) {
+        return new Object[]{sketch.getAnswerCount(), sketch.distinctBytes(), sketch.numericBytes(), sketch.termsBytes(),
+                surveyId, questionId};
+    }
+
+    private static AnswerSketch read(ResultSet rs) throws SQLException {
+        return AnswerSketch.fromBytes(rs.getLong("answer_count"), rs.getBytes("distinct_answers"),
+                rs.getBytes("numeric_answers"), rs.getBytes("top_terms"));
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.dto.SubmissionView;
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.QuestionOptionTally;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionOptionTallyRepository;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SubmissionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Live per-option answer counts for choice, dropdown and rating questions.
+ *
+ * Ingest paths call {@link #record} for every stored answer. Counts are buffered in
+ * striped adders per survey and flushed as deltas on a schedule, the same way as
+ * {@link ResponseCountService}; reads add the pending deltas to the stored rows, so
+ * a survey's tallies cost O(questions x options) to read and never rescan responses.
+ */
+@Service
+public class AnswerTallyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerTallyService.class);
+
+    private static final String UPDATE_TALLY_SQL =
+            "UPDATE question_option_tallies SET answer_count = answer_count + ? " +
+                    "WHERE survey_id = ? AND question_id = ? AND option_value = ?";
+
+    private static final String INSERT_TALLY_SQL =
+            "INSERT INTO question_option_tallies (survey_id, question_id, option_value, answer_count) " +
+                    "VALUES (?, ?, ?, ?)";
+
+    private static final String AGGREGATE_ANSWERS_SQL =
+            "SELECT question_id, answer_text, COUNT(*) FROM responses " +
+                    "WHERE survey_id = ? GROUP BY question_id, answer_text";
+
+    @Autowired
+    private QuestionOptionTallyRepository tallyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // The scale the survey form offers for rating questions
+    public static final int RATING_MIN = 1;
+    public static final int RATING_MAX = 5;
+
+    private record OptionKey(Long questionId, String optionValue) {
+    }
+
+    private final Map<Long, Map<OptionKey, LongAdder>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Whether an answer to this question is counted. Free text is not, for choice
+     * questions only one of the defined options is, and for rating questions only a value
+     * on the rating scale, which keeps the number of tally rows bounded by the survey
+     * definition.
+     */
+    public static boolean isTallied(Question question, String answerText) {
+        if (question == null || answerText == null || answerText.isBlank()) {
+            return false;
+        }
+        String type = question.getQuestionType();
+        if ("multiple_choice".equals(type) || "dropdown".equals(type)) {
+            return question.getAnswerOptions() != null && question.getAnswerOptions().contains(answerText);
+        }
+        if ("rating".equals(type)) {
+            return toRating(answerText) != null;
+        }
+        return false;
+    }
+
+    /**
+     * @return the rating in canonical form, so "4", " 4" and "04" count as one option,
+     *         or null if the answer is not a whole number on the rating scale
+     */
+    public static String toRating(String answerText) {
+        try {
+            int rating = Integer.parseInt(answerText.trim());
+            return rating >= RATING_MIN && rating <= RATING_MAX ? String.valueOf(rating) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void record(Long surveyId, Question question, String answerText) {
+        add(surveyId, question, answerText, 1);
+    }
+
+    public void remove(Long surveyId, Question question, String answerText) {
+        add(surveyId, question, answerText, -1);
+    }
+
+    private void add(Long surveyId, Question question, String answerText, long delta) {
+        if (surveyId == null || !isTallied(question, answerText)) {
+            return;
+        }
+        String optionValue = "rating".equals(question.getQuestionType()) ? toRating(answerText) : answerText;
+        pending.computeIfAbsent(surveyId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(new OptionKey(question.getQuestionId(), optionValue), key -> new LongAdder())
+                .add(delta);
+    }
+
+    /**
+     * @return question id to option value to count, persisted rows plus unflushed deltas
+     */
+    public Map<Long, Map<String, Long>> getTallies(Long surveyId) {
+        Map<Long, Map<String, Long>> tallies = new TreeMap<>();
+        for (QuestionOptionTally tally : tallyRepository.findBySurveyId(surveyId)) {
+            tallies.computeIfAbsent(tally.getQuestionId(), id -> new TreeMap<>())
+                    .merge(tally.getOptionValue(), tally.getAnswerCount(), Long::sum);
+        }
+
+        Map<OptionKey, LongAdder> surveyPending = pending.get(surveyId);
+        if (surveyPending != null) {
+            surveyPending.forEach((key, adder) -> {
+                long delta = adder.sum();
+                if (delta != 0) {
+                    tallies.computeIfAbsent(key.questionId(), id -> new TreeMap<>())
+                            .merge(key.optionValue(), delta, Long::sum);
+                }
+            });
+        }
+        return tallies;
+    }
+
+    /**
+     * Recomputes a survey's tallies from its stored responses, for backfill or repair.
+     * Answers recorded while the rebuild runs may be counted twice or not at all, so
+     * run it when the survey is quiet.
+     */
+    public Map<Long, Map<String, Long>> rebuild(Survey survey) {
+        Long surveyId = survey.getSurveyId();
+        Map<Long, Question> questionsById = new HashMap<>();
+        for (Question question : questionRepository.findBySurvey(survey)) {
+            questionsById.put(question.getQuestionId(), question);
+        }
+
+        // Replaced by the rebuilt rows once they commit; put back if the rebuild fails
+        Map<OptionKey, LongAdder> discarded = pending.remove(surveyId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                tallyRepository.deleteAllBySurveyId(surveyId);
+
+                Map<OptionKey, Long> counts = new HashMap<>();
+                jdbcTemplate.query(AGGREGATE_ANSWERS_SQL, rs -> {
+                    count(counts, questionsById.get(rs.getLong(1)), rs.getString(2), rs.getLong(3));
+                }, surveyId);
+                try (Stream<SubmissionView> submissions = submissionRepository.streamViewsBySurveyId(surveyId)) {
+                    submissions.forEach(submission -> submission.answers().forEach((questionId, answerText) ->
+                            count(counts, questionsById.get(questionId), answerText, 1)));
+                }
+
+                List<Object[]> rows = new ArrayList<>(counts.size());
+                counts.forEach((key, count) -> rows.add(new Object[]{surveyId, key.questionId(), key.optionValue(), count}));
+                jdbcTemplate.batchUpdate(INSERT_TALLY_SQL, rows);
+            });
+        } catch (RuntimeException e) {
+            if (discarded != null) {
+                Map<OptionKey, LongAdder> surveyPending = pending.computeIfAbsent(surveyId, id -> new ConcurrentHashMap<>());
+                discarded.forEach((key, adder) -> surveyPending.computeIfAbsent(key, k -> new LongAdder()).add(adder.sum()));
+            }
+            throw e;
+        }
+
+        return getTallies(surveyId);
+    }
+
+    private void count(Map<OptionKey, Long> counts, Question question, String answerText, long answers) {
+        if (isTallied(question, answerText)) {
+            String optionValue = "rating".equals(question.getQuestionType()) ? toRating(answerText) : answerText;
+            counts.merge(new OptionKey(question.getQuestionId(), optionValue), answers, Long::sum);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:1000}")
+    public void flush() {
+        List<Object[]> deltas = new ArrayList<>();
+        List<LongAdder> adders = new ArrayList<>();
+
+        pending.forEach((surveyId, surveyPending) -> surveyPending.forEach((key, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                deltas.add(new Object[]{delta, surveyId, key.questionId(), key.optionValue()});
+                adders.add(adder);
+            }
+        }));
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[] updated = jdbcTemplate.batchUpdate(UPDATE_TALLY_SQL, deltas);
+                List<Object[]> inserts = new ArrayList<>();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        Object[] delta = deltas.get(i);
+                        inserts.add(new Object[]{delta[1], delta[2], delta[3], delta[0]});
+                    }
+                }
+                if (!inserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_TALLY_SQL, inserts);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Typically another node inserted the same new option first; the deltas are kept for the next tick
+            logger.error("Failed to flush {} answer tally deltas", deltas.size(), e);
+            return;
+        }
+
+        for (int i = 0; i < adders.size(); i++) {
+            adders.get(i).add(-(long) deltas.get(i)[0]);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.surveyx.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client for the chat completions API.
+ *
+ * One shared JDK HttpClient keeps connections alive across calls. Calls are limited
+ * to {@code max-concurrent-requests} at a time, retried with jittered exponential
+ * backoff on 429, 5xx and I/O errors, and short-circuited for {@code open-duration}
+ * after {@code failure-threshold} consecutive calls that failed that way. Other 4xx
+ * replies fail the call without counting against the circuit: they are caused by the
+ * request, not by the service being unavailable. Latency and outcomes are published
+ * as the {@code llm.requests} timer. Analytics sizes its own concurrency against
+ * {@code max-concurrent-requests}, so its calls do not wait out the acquire timeout.
+ */
+@Service
+public class LlmClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmClient.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${openai.api.key}")
+    private String apiKey;
+
+    @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}")
+    private String apiUrl;
+
+    @Value("${openai.api.model:gpt-3.5-turbo}")
+    private String model;
+
+    @Value("${app.llm.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${app.llm.read-timeout:60s}")
+    private Duration readTimeout;
+
+    @Value("${app.llm.max-concurrent-requests:6}")
+    private int maxConcurrentRequests;
+
+    @Value("${app.llm.acquire-timeout:30s}")
+    private Duration acquireTimeout;
+
+    @Value("${app.llm.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.llm.initial-backoff:500ms}")
+    private Duration initialBackoff;
+
+    @Value("${app.llm.max-backoff:10s}")
+    private Duration maxBackoff;
+
+    @Value("${app.llm.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.llm.circuit.open-duration:30s}")
+    private Duration openDuration;
+
+    private RestClient restClient;
+
+    private Semaphore permits;
+
+    private Counter retries;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openUntil = new AtomicLong();
+    private final AtomicBoolean halfOpenTrial = new AtomicBoolean();
+
+    public static class LlmException extends RuntimeException {
+        public LlmException(String message) {
+            super(message);
+        }
+
+        public LlmException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private record Reply(int status, String body, String retryAfter) {
+    }
+
+    @PostConstruct
+    public void init() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+
+        restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .build();
+
+        permits = new Semaphore(maxConcurrentRequests);
+        retries = meterRegistry.counter("llm.retries");
+        Gauge.builder("llm.requests.active", permits, p -> maxConcurrentRequests - p.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("llm.circuit.open", this, client -> client.isCircuitOpen() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the content of the first choice's message
+     * @throws LlmException if the call did not succeed within the retry budget, or the circuit is open
+     */
+    public String complete(String systemPrompt, String userPrompt, double temperature) {
+        if (!allowRequest()) {
+            throw new LlmException("LLM circuit is open, not calling " + apiUrl);
+        }
+
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userPrompt)));
+        requestBody.put("temperature", temperature);
+
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                halfOpenTrial.set(false);
+                throw new LlmException("Too many concurrent LLM requests");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            halfOpenTrial.set(false);
+            throw new LlmException("Interrupted waiting for an LLM request slot", e);
+        }
+
+        try {
+            String content = callWithRetries(requestBody);
+            recordSuccess();
+            return content;
+        } catch (RetryableFailure e) {
+            recordFailure();
+            throw e;
+        } catch (LlmException e) {
+            // The service answered; let a half-open circuit try again with the next call
+            halfOpenTrial.set(false);
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public boolean isCircuitOpen() {
+        return System.currentTimeMillis() < openUntil.get();
+    }
+
+    private String callWithRetries(Map<String, Object> requestBody) {
+        RetryableFailure lastFailure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (attempt > 1) {
+                retries.increment();
+                sleep(backoff(attempt, lastFailure));
+            }
+
+            long start = System.nanoTime();
+            Reply reply;
+            try {
+                reply = send(requestBody);
+            } catch (RuntimeException e) {
+                record("io_error", start);
+                lastFailure = new RetryableFailure("LLM request failed: " + e.getMessage(), e);
+                continue;
+            }
+
+            int status = reply.status();
+            if (status >= 200 && status < 300) {
+                record("success", start);
+                return extractContent(reply.body());
+            }
+            if (status == 429 || status >= 500) {
+                record(status == 429 ? "rate_limited" : "server_error", start);
+                lastFailure = new RetryableFailure(status, reply.retryAfter());
+                continue;
+            }
+            record("client_error", start);
+            throw new LlmException("LLM request rejected with status " + status + ": " + reply.body());
+        }
+        throw lastFailure;
+    }
+
+    private Reply send(Map<String, Object> requestBody) {
+        return restClient.post()
+                .uri(apiUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(requestBody)
+                .exchange((request, response) -> {
+                    try {
+                        return new Reply(response.getStatusCode().value(),
+                                new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8),
+                                response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private String extractContent(String body) {
+        try {
+            JsonNode content = objectMapper.readTree(body).path("choices").path(0).path("message").path("content");
+            if (content.isMissingNode() || content.isNull()) {
+                throw new LlmException("LLM response has no message content");
+            }
+            return content.asText();
+        } catch (IOException e) {
+            throw new LlmException("LLM response is not valid JSON", e);
+        }
+    }
+
+    /**
+     * Full jitter over an exponentially growing window; a Retry-After in seconds is honoured up to the cap.
+     */
+    private long backoff(int attempt, RetryableFailure lastFailure) {
+        long cap = maxBackoff.toMillis();
+        if (lastFailure.retryAfter != null) {
+            try {
+                return Math.min(cap, Long.parseLong(lastFailure.retryAfter.trim()) * 1000);
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form, fall back to the computed backoff
+            }
+        }
+        long window = Math.min(cap, initialBackoff.toMillis() << Math.min(attempt - 2, 20));
+        return ThreadLocalRandom.current().nextLong(window + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmException("Interrupted during LLM retry backoff", e);
+        }
+    }
+
+    private void record(String outcome, long startNanos) {
+        Timer.builder("llm.requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Closed: every call passes. Open: calls fail fast until the open period ends. After
+     * that a single trial call is let through; its outcome closes or reopens the circuit.
+     */
+    private boolean allowRequest() {
+        if (consecutiveFailures.get() < failureThreshold) {
+            return true;
+        }
+        if (isCircuitOpen()) {
+            return false;
+        }
+        return halfOpenTrial.compareAndSet(false, true);
+    }
+
+    private void recordSuccess() {
+        consecutiveFailures.set(0);
+        halfOpenTrial.set(false);
+    }
+
+    private void recordFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openUntil.set(System.currentTimeMillis() + openDuration.toMillis());
+            if (halfOpenTrial.compareAndSet(true, false) || consecutiveFailures.get() == failureThreshold) {
+                logger.warn("LLM circuit opened for {} after {} consecutive failures",
+                        openDuration, consecutiveFailures.get());
+            }
+        }
+    }
+
+    // 429, 5xx or I/O error: retried, and counted against the circuit once the retries are used up
+    private static class RetryableFailure extends LlmException {
+        private final String retryAfter;
+
+        private RetryableFailure(int status, String retryAfter) {
+            super("LLM request failed with status " + status);
+            this.retryAfter = retryAfter;
+        }
+
+        private RetryableFailure(String message, Throwable cause) {
+            super(message, cause);
+            this.retryAfter = null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.dto.ResponseView;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits survey answers into prompt chunks that each fit a token budget.
+ *
+ * Answers are grouped per question in the order the questions first appear, and a
+ * question whose answers do not fit one chunk is split over several. Tokens are
+ * estimated at four characters per token, which is close enough for English text to
+ * keep every chunk well inside the model context.
+ */
+public final class PromptChunker {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    // Room for the question line and part header of each chunk
+    private static final int HEADER_TOKENS = 64;
+
+    private PromptChunker() {
+    }
+
+    public record Chunk(Long questionId, String questionText, int part, int parts, List<String> answers,
+                        int estimatedTokens) {
+
+        public String render() {
+            StringBuilder text = new StringBuilder();
+            text.append("Question: ").append(questionText);
+            if (parts > 1) {
+                text.append(" (part ").append(part).append(" of ").append(parts).append(')');
+            }
+            text.append("\nResponses:\n");
+            for (String answer : answers) {
+                text.append("- ").append(answer).append('\n');
+            }
+            return text.toString();
+        }
+    }
+
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * @param tokenBudget upper bound for the estimated tokens of each rendered chunk
+     */
+    public static List<Chunk> chunk(List<ResponseView> responses, int tokenBudget) {
+        Map<Long, String> questionTexts = new LinkedHashMap<>();
+        Map<Long, List<String>> answersByQuestion = new LinkedHashMap<>();
+        for (ResponseView response : responses) {
+            if (response.question() != null && response.answerText() != null) {
+                Long questionId = response.question().questionId();
+                questionTexts.putIfAbsent(questionId, response.question().questionText());
+                answersByQuestion.computeIfAbsent(questionId, id -> new ArrayList<>()).add(response.answerText());
+            }
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        int answerBudget = Math.max(1, tokenBudget - HEADER_TOKENS);
+        for (Map.Entry<Long, List<String>> entry : answersByQuestion.entrySet()) {
+            Long questionId = entry.getKey();
+            String questionText = questionTexts.get(questionId);
+            int questionTokens = estimateTokens(questionText);
+
+            List<List<String>> groups = new ArrayList<>();
+            List<Integer> groupTokens = new ArrayList<>();
+            List<String> current = new ArrayList<>();
+            int currentTokens = questionTokens;
+            for (String answer : entry.getValue()) {
+                String fitted = truncate(answer, answerBudget - questionTokens);
+                int tokens = estimateTokens(fitted) + 1;
+                if (!current.isEmpty() && currentTokens + tokens > answerBudget) {
+                    groups.add(current);
+                    groupTokens.add(currentTokens);
+                    current = new ArrayList<>();
+                    currentTokens = questionTokens;
+                }
+                current.add(fitted);
+                currentTokens += tokens;
+            }
+            groups.add(current);
+            groupTokens.add(currentTokens);
+
+            for (int i = 0; i < groups.size(); i++) {
+                chunks.add(new Chunk(questionId, questionText, i + 1, groups.size(), groups.get(i),
+                        groupTokens.get(i) + HEADER_TOKENS));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Groups texts in order into batches whose estimated tokens stay within the budget.
+     */
+    public static List<List<String>> batch(List<String> texts, int tokenBudget) {
+        List<List<String>> batches = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (String text : texts) {
+            int tokens = estimateTokens(text);
+            if (!current.isEmpty() && currentTokens + tokens > tokenBudget) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(text);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private static String truncate(String answer, int tokenBudget) {
+        int maxChars = Math.max(1, tokenBudget) * CHARS_PER_TOKEN;
+        return answer.length() <= maxChars ? answer : answer.substring(0, maxChars - 3) + "...";
+    }
+}
@@ -1,13 +1,16 @@
 package com.example.surveyx.services;
 
+import com.example.surveyx.dto.KeysetPage;
 import com.example.surveyx.models.Question;
 import com.example.surveyx.models.Survey;
 import com.example.surveyx.repositories.QuestionRepository;
 import com.example.surveyx.repositories.SurveyRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class QuestionService {
@@ -18,10 +21,20 @@ public class QuestionService {
     @Autowired
     private SurveyRepository surveyRepository;
 
+    @Autowired
+    private SurveyDefinitionCache surveyDefinitionCache;
+
     public List<Question> getAllQuestions() {
         return questionRepository.findAll();
     }
 
+    public KeysetPage<Question> getQuestionsPage(String after, Integer limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<Question> questions = questionRepository.findByQuestionIdGreaterThanOrderByQuestionIdAsc(
+                KeysetPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return KeysetPage.of(questions, pageSize, Question::getQuestionId);
+    }
+
     public Question getQuestionById(Long questionId) {
         return questionRepository.findById(questionId).orElse(null);
     }
@@ -32,14 +45,32 @@ public class QuestionService {
 
     public Question createQuestion(Question question) {
         question.setCreatedAt(LocalDateTime.now());
-        return questionRepository.save(question);
+        Question savedQuestion = questionRepository.save(question);
+        surveyDefinitionCache.invalidateSurvey(surveyIdOf(savedQuestion));
+        return savedQuestion;
     }
 
     public Question updateQuestion(Question question) {
-        return questionRepository.save(question);
+        Long previousSurveyId = question.getQuestionId() == null ? null
+                : questionRepository.findById(question.getQuestionId()).map(this::surveyIdOf).orElse(null);
+
+        Question savedQuestion = questionRepository.save(question);
+
+        // A question can be moved between surveys, so both definitions go stale
+        surveyDefinitionCache.invalidateSurvey(previousSurveyId);
+        if (!Objects.equals(previousSurveyId, surveyIdOf(savedQuestion))) {
+            surveyDefinitionCache.invalidateSurvey(surveyIdOf(savedQuestion));
+        }
+        return savedQuestion;
     }
 
     public void deleteQuestion(Long questionId) {
+        Long surveyId = questionRepository.findById(questionId).map(this::surveyIdOf).orElse(null);
         questionRepository.deleteById(questionId);
+        surveyDefinitionCache.invalidateSurvey(surveyId);
+    }
+
+    private Long surveyIdOf(Question question) {
+        return question.getSurvey() == null ? null : question.getSurvey().getSurveyId();
     }
 }
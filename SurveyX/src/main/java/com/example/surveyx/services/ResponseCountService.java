@@ -0,0 +1,99 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.models.Survey;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped per-survey response counters.
+ *
+ * Increments land in a {@link LongAdder} and are periodically written as a single
+ * {@code response_count = response_count + ?} delta per survey, so concurrent
+ * submissions never contend on the survey row. A flushed delta is only subtracted
+ * from the adder after its transaction commits, which keeps
+ * persisted + pending exact and leaves a failed flush to be retried on the next tick.
+ */
+@Service
+public class ResponseCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCountService.class);
+
+    private static final String INCREMENT_RESPONSE_COUNT_SQL =
+            "UPDATE surveys SET response_count = COALESCE(response_count, 0) + ? WHERE survey_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public void increment(Long surveyId) {
+        pending.computeIfAbsent(surveyId, id -> new LongAdder()).increment();
+    }
+
+    public long getPendingCount(Long surveyId) {
+        LongAdder adder = pending.get(surveyId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Sets the increments that have not been flushed yet on the survey, where they are
+     * added to the persisted count it reports. The persisted count itself is left alone,
+     * so a managed survey can be passed in any number of times.
+     */
+    public Survey applyPending(Survey survey) {
+        if (survey != null && survey.getSurveyId() != null) {
+            survey.setPendingResponseCount(getPendingCount(survey.getSurveyId()));
+        }
+        return survey;
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:1000}")
+    public void flush() {
+        List<Object[]> deltas = new ArrayList<>();
+        List<LongAdder> adders = new ArrayList<>();
+
+        pending.forEach((surveyId, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                deltas.add(new Object[]{delta, surveyId});
+                adders.add(adder);
+            }
+        });
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INCREMENT_RESPONSE_COUNT_SQL, deltas));
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush response counts for {} surveys", deltas.size(), e);
+            return;
+        }
+
+        for (int i = 0; i < adders.size(); i++) {
+            adders.get(i).add(-(long) deltas.get(i)[0]);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
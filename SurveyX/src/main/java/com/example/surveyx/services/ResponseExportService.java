@@ -0,0 +1,208 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.dto.QuestionSummary;
+import com.example.surveyx.dto.ResponseView;
+import com.example.surveyx.dto.SubmissionView;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.ResponseRepository;
+import com.example.surveyx.repositories.SubmissionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Streams all responses of a survey as one row per respondent, pivoted by question.
+ *
+ * Rows come from a forward-only cursor ordered by respondent as {@link ResponseView}
+ * projections, so nothing accumulates in the persistence context and only the answers
+ * of the respondent currently being assembled are held in memory. Respondents stored
+ * in the submission layout follow from a second cursor, one row each.
+ */
+@Service
+public class ResponseExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_CSV.equals(format) || FORMAT_NDJSON.equals(format);
+    }
+
+    public boolean surveyExists(Long surveyId) {
+        return surveyRepository.existsById(surveyId);
+    }
+
+    public void export(Long surveyId, String format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                List<QuestionSummary> questions = questionRepository.findSummariesBySurveyId(surveyId);
+                RowWriter rowWriter = FORMAT_CSV.equals(format)
+                        ? new CsvRowWriter(writer, questions)
+                        : new NdjsonRowWriter(writer, objectMapper);
+
+                try (Stream<ResponseView> rows = responseRepository.streamViewsBySurveyId(surveyId)) {
+                    rowWriter.writeHeader();
+                    Respondent current = null;
+                    Iterator<ResponseView> iterator = rows.iterator();
+                    while (iterator.hasNext()) {
+                        ResponseView response = iterator.next();
+                        if (current == null || !Objects.equals(current.respondentId, response.respondentId())) {
+                            if (current != null) {
+                                rowWriter.writeRow(current);
+                            }
+                            current = new Respondent(response.respondentId(), response.submittedAt());
+                        }
+                        if (response.question() != null) {
+                            current.answers.put(response.question().questionId(), response.answerText());
+                        }
+                    }
+                    if (current != null) {
+                        rowWriter.writeRow(current);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                // Submission-layout respondents already come as one row each
+                try (Stream<SubmissionView> submissions = submissionRepository.streamViewsBySurveyId(surveyId)) {
+                    Iterator<SubmissionView> iterator = submissions.iterator();
+                    while (iterator.hasNext()) {
+                        SubmissionView submission = iterator.next();
+                        Respondent respondent = new Respondent(submission.respondentId(), submission.submittedAt());
+                        new TreeMap<>(submission.answers()).forEach((questionId, answerText) -> {
+                            if (answerText != null) {
+                                respondent.answers.put(questionId, answerText);
+                            }
+                        });
+                        rowWriter.writeRow(respondent);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+    }
+
+    private static class Respondent {
+        private final UUID respondentId;
+        private final LocalDateTime submittedAt;
+        private final Map<Long, String> answers = new LinkedHashMap<>();
+
+        private Respondent(UUID respondentId, LocalDateTime submittedAt) {
+            this.respondentId = respondentId;
+            this.submittedAt = submittedAt;
+        }
+    }
+
+    private interface RowWriter {
+        void writeHeader() throws IOException;
+
+        void writeRow(Respondent respondent) throws IOException;
+    }
+
+    private static class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final ObjectMapper objectMapper;
+
+        private NdjsonRowWriter(Writer writer, ObjectMapper objectMapper) {
+            this.writer = writer;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void writeHeader() {
+        }
+
+        @Override
+        public void writeRow(Respondent respondent) throws IOException {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("respondentId", respondent.respondentId);
+            row.put("submittedAt", respondent.submittedAt);
+            row.put("answers", respondent.answers);
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final List<QuestionSummary> questions;
+
+        private CsvRowWriter(Writer writer, List<QuestionSummary> questions) {
+            this.writer = writer;
+            this.questions = questions;
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            writer.write("respondent_id,submitted_at");
+            for (QuestionSummary question : questions) {
+                writer.write(',');
+                writeField(question.questionText());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void writeRow(Respondent respondent) throws IOException {
+            writeField(respondent.respondentId == null ? null : respondent.respondentId.toString());
+            writer.write(',');
+            writeField(respondent.submittedAt == null ? null : respondent.submittedAt.toString());
+            for (QuestionSummary question : questions) {
+                writer.write(',');
+                writeField(respondent.answers.get(question.questionId()));
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+    }
+}
@@ -1,47 +1,191 @@
 package com.example.surveyx.services;
 
+import com.example.surveyx.dto.KeysetPage;
+import com.example.surveyx.dto.QuestionSummary;
+import com.example.surveyx.dto.ResponseView;
+import com.example.surveyx.dto.ResponseWatermark;
+import com.example.surveyx.dto.SubmissionView;
 import com.example.surveyx.models.Question;
 import com.example.surveyx.models.Response;
+import com.example.surveyx.models.Submission;
 import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
 import com.example.surveyx.repositories.ResponseRepository;
+import com.example.surveyx.repositories.SubmissionRepository;
 import com.example.surveyx.repositories.SurveyRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
+/**
+ * Stores responses either as one row per answer ({@code answers} layout) or as one
+ * submission row per respondent ({@code submissions} layout), chosen for new
+ * submissions by {@code app.responses.layout}.
+ *
+ * Reads always cover both layouts so a survey can hold a mix while it is migrated.
+ * Submission answers are exploded into {@link ResponseView}s with synthetic response
+ * ids (see {@link Submission}) that sort after every answer row, so id-ordered reads,
+ * keyset paging and the analytics watermark work unchanged.
+ */
 @Service
 public class ResponseService {
 
+    public static final String LAYOUT_ANSWERS = "answers";
+    public static final String LAYOUT_SUBMISSIONS = "submissions";
+
     @Autowired
     private ResponseRepository responseRepository;
 
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
     @Autowired
     private SurveyRepository surveyRepository;
 
+    @Autowired
+    private QuestionRepository questionRepository;
+
     @Autowired
     private QuestionService questionService;
 
+    @Autowired
+    private ResponseCountService responseCountService;
+
+    @Autowired
+    private AnswerTallyService answerTallyService;
+
+    @Autowired
+    private AnswerSketchService answerSketchService;
+
+    @Autowired
+    private SurveyDefinitionCache surveyDefinitionCache;
+
+    @Autowired
+    private SubmissionMigrationService submissionMigrationService;
+
+    @Value("${app.responses.layout:" + LAYOUT_ANSWERS + "}")
+    private String layout;
+
+    public boolean usesSubmissionLayout() {
+        return LAYOUT_SUBMISSIONS.equals(layout);
+    }
+
+    /**
+     * The id of an answer row that was migrated into a submission still resolves; the
+     * answer is returned under the id it was asked for.
+     */
     public Response getResponseById(Long responseId) {
-        return responseRepository.findById(responseId).orElse(null);
+        if (Submission.isAnswerId(responseId)) {
+            return getSubmissionAnswer(responseId);
+        }
+        Response response = responseRepository.findById(responseId).orElse(null);
+        if (response == null) {
+            Long answerId = submissionMigrationService.findMovedAnswerId(responseId);
+            response = answerId == null ? null : getSubmissionAnswer(answerId);
+            if (response != null) {
+                response.setResponseId(responseId);
+            }
+        }
+        return response;
     }
 
-    public List<Response> getAllResponsesBySurvey(Long surveyId) {
-        Survey survey = surveyRepository.findById(surveyId).orElse(null);
-        if (survey == null) return null;
-        return responseRepository.findBySurvey(survey);
+    public List<ResponseView> getAllResponsesBySurvey(Long surveyId) {
+        if (!surveyRepository.existsById(surveyId)) return null;
+        return getResponseViews(surveyId);
     }
 
-    public List<Response> getResponsesByRespondent(Long surveyId, UUID respondentId) {
-        Survey survey = surveyRepository.findById(surveyId).orElse(null);
-        if (survey == null) return null;
-        return responseRepository.findBySurveyAndRespondentId(survey, respondentId);
+    /**
+     * All answers of a survey in response id order, answer rows before submission answers.
+     */
+    public List<ResponseView> getResponseViews(Long surveyId) {
+        return withSubmissionAnswers(responseRepository.findViewsBySurveyId(surveyId), surveyId,
+                submissionRepository.findViewsBySurveyId(surveyId), 0L);
     }
 
+    /**
+     * Answers of a survey with a response id above {@code after}, in response id order.
+     */
+    public List<ResponseView> getResponsesAfter(Long surveyId, long after) {
+        if (Submission.isAnswerId(after)) {
+            return withSubmissionAnswers(List.of(), surveyId,
+                    submissionRepository.findViewsBySurveyIdFrom(surveyId, Submission.submissionIdOf(after)), after);
+        }
+        return withSubmissionAnswers(responseRepository.findViewsBySurveyIdAfter(surveyId, after), surveyId,
+                submissionRepository.findViewsBySurveyId(surveyId), after);
+    }
+
+    public KeysetPage<ResponseView> getResponsesPageBySurvey(Long surveyId, String after, Integer limit) {
+        if (!surveyRepository.existsById(surveyId)) return null;
+        int pageSize = KeysetPage.clampLimit(limit);
+        long cursor = KeysetPage.decodeCursor(after);
+
+        List<ResponseView> responses = Submission.isAnswerId(cursor)
+                ? List.of()
+                : responseRepository.findViewPageBySurveyId(surveyId, cursor, Limit.of(pageSize + 1));
+        if (responses.size() <= pageSize) {
+            // Every stored submission holds at least one answer, so pageSize + 2 of them fill the
+            // page even when the first is the one the cursor points into
+            long from = Submission.isAnswerId(cursor) ? Submission.submissionIdOf(cursor) : 0L;
+            responses = withSubmissionAnswers(responses, surveyId,
+                    submissionRepository.findViewPageBySurveyId(surveyId, from, Limit.of(pageSize + 2)), cursor);
+        }
+        return KeysetPage.of(responses, pageSize, ResponseView::responseId);
+    }
+
+    public List<ResponseView> getResponsesByRespondent(Long surveyId, UUID respondentId) {
+        if (!surveyRepository.existsById(surveyId)) return null;
+        return withSubmissionAnswers(responseRepository.findViewsBySurveyIdAndRespondentId(surveyId, respondentId),
+                surveyId, submissionRepository.findViewsBySurveyIdAndRespondentId(surveyId, respondentId), 0L);
+    }
 
+    /**
+     * Highest response id, latest submission time and answer count over both layouts. With
+     * submissions present the id is the last slot of the newest submission, which no
+     * answer id exceeds.
+     */
+    public ResponseWatermark getWatermark(Long surveyId) {
+        ResponseWatermark answers = responseRepository.findWatermarkBySurveyId(surveyId);
+        ResponseWatermark submissions = submissionRepository.findWatermarkBySurveyId(surveyId);
+        if (submissions.lastResponseId() == null) {
+            return answers;
+        }
+        LocalDateTime lastSubmittedAt = answers.lastSubmittedAt();
+        if (lastSubmittedAt == null || (submissions.lastSubmittedAt() != null
+                && submissions.lastSubmittedAt().isAfter(lastSubmittedAt))) {
+            lastSubmittedAt = submissions.lastSubmittedAt();
+        }
+        return new ResponseWatermark(Submission.answerId(submissions.lastResponseId(), Submission.MAX_ANSWERS - 1),
+                lastSubmittedAt, answers.responseCount() + submissions.responseCount());
+    }
+
+    public long countResponsesAfter(Long surveyId, long after) {
+        if (!Submission.isAnswerId(after)) {
+            return responseRepository.countBySurveyIdAfter(surveyId, after)
+                    + submissionRepository.countAnswersBySurveyIdAfter(surveyId, 0L);
+        }
+        long submissionId = Submission.submissionIdOf(after);
+        long count = submissionRepository.countAnswersBySurveyIdAfter(surveyId, submissionId);
+        // Plus the later slots of the submission the id points into
+        Submission current = submissionRepository.findById(submissionId).orElse(null);
+        if (current != null && surveyId.equals(current.getSurveyId())) {
+            count += toView(current).toResponseViews(Map.of(), after).size();
+        }
+        return count;
+    }
+
+    /**
+     * Stores a single answer as an answer row whatever the layout. Callers add a
+     * respondent's answers one request at a time, and a submission holds all of them in
+     * one row that would have to be rewritten for every answer; the migration folds such
+     * rows into submissions later.
+     */
     @Transactional
     public Response saveResponse(Response response) {
         if (response.getSurvey() != null && response.getSurvey().getSurveyId() != null) {
@@ -60,11 +204,39 @@ public class ResponseService {
             response.setSubmittedAt(LocalDateTime.now());
         }
 
-        return responseRepository.save(response);
+        Response savedResponse = responseRepository.save(response);
+
+        if (response.getSurvey() != null && response.getQuestion() != null) {
+            Long surveyId = response.getSurvey().getSurveyId();
+            Question question = questionService.getQuestionById(response.getQuestion().getQuestionId());
+            afterCommit(() -> {
+                answerTallyService.record(surveyId, question, response.getAnswerText());
+                answerSketchService.record(surveyId, question, response.getAnswerText());
+            });
+        }
+
+        return savedResponse;
     }
 
     public void deleteResponse(Long responseId) {
+        if (Submission.isAnswerId(responseId)) {
+            deleteSubmissionAnswer(responseId);
+            return;
+        }
+        Response response = responseRepository.findById(responseId).orElse(null);
+        if (response == null) {
+            Long answerId = submissionMigrationService.findMovedAnswerId(responseId);
+            if (answerId != null) {
+                deleteSubmissionAnswer(answerId);
+                submissionMigrationService.forgetMovedAnswer(responseId);
+            }
+            return;
+        }
         responseRepository.deleteById(responseId);
+        if (response.getSurvey() != null) {
+            afterCommit(() -> answerTallyService.remove(response.getSurvey().getSurveyId(), response.getQuestion(),
+                    response.getAnswerText()));
+        }
     }
 
     public List<Response> saveResponsesForSurvey(Long surveyId, List<Response> responses) {
@@ -74,6 +246,36 @@ public class ResponseService {
         // Generate a unique respondent ID
         UUID respondentId = UUID.randomUUID();
 
+        Map<Long, String> answers = usesSubmissionLayout()
+                ? Submission.answerMap(
+                        responses.stream().map(r -> r.getQuestion() == null ? null : r.getQuestion().getQuestionId()).toList(),
+                        responses.stream().map(Response::getAnswerText).toList())
+                : null;
+
+        // Answers that do not fit one submission are stored as rows
+        List<Response> savedResponses = answers != null
+                ? saveSubmission(survey, respondentId, answers)
+                : saveAnswerRows(survey, respondentId, responses);
+
+        Map<Long, Question> questionsById = new HashMap<>();
+        for (Question question : getQuestions(survey)) {
+            questionsById.put(question.getQuestionId(), question);
+        }
+        afterCommit(() -> {
+            responseCountService.increment(surveyId);
+            for (Response response : savedResponses) {
+                if (response.getQuestion() != null) {
+                    Question question = questionsById.get(response.getQuestion().getQuestionId());
+                    answerTallyService.record(surveyId, question, response.getAnswerText());
+                    answerSketchService.record(surveyId, question, response.getAnswerText());
+                }
+            }
+        });
+
+        return savedResponses;
+    }
+
+    private List<Response> saveAnswerRows(Survey survey, UUID respondentId, List<Response> responses) {
         // Set survey and respondent ID for each response
         responses.forEach(response -> {
             response.setSurvey(survey);
@@ -81,13 +283,108 @@ public class ResponseService {
         });
 
         // Save all responses
-        List<Response> savedResponses = responseRepository.saveAll(responses);
+        return responseRepository.saveAll(responses);
+    }
 
-        // Update survey response count
-        survey.setResponseCount(survey.getResponseCount() + 1);
-        surveyRepository.save(survey);
+    // Returned in the per-answer shape, with the synthetic ids the answers are read back under
+    private List<Response> saveSubmission(Survey survey, UUID respondentId, Map<Long, String> answers) {
+        Submission submission = submissionRepository.save(new Submission(null, survey.getSurveyId(), respondentId,
+                LocalDateTime.now(), answers, answers.size()));
 
+        List<Response> savedResponses = new ArrayList<>(answers.size());
+        int slot = 0;
+        for (Map.Entry<Long, String> answer : answers.entrySet()) {
+            Question questionRef = new Question();
+            questionRef.setQuestionId(answer.getKey());
+            savedResponses.add(new Response(Submission.answerId(submission.getSubmissionId(), slot++), survey,
+                    respondentId, questionRef, answer.getValue(), submission.getSubmittedAt()));
+        }
         return savedResponses;
     }
-}
 
+    // Assembled as a detached Response so callers see the same shape as for an answer row
+    private Response getSubmissionAnswer(long responseId) {
+        Submission submission = submissionRepository.findById(Submission.submissionIdOf(responseId)).orElse(null);
+        Map.Entry<Long, String> answer = submission == null ? null : answerAt(submission, Submission.slotOf(responseId));
+        if (answer == null || answer.getValue() == null) {
+            return null;
+        }
+        return new Response(responseId, surveyRepository.findById(submission.getSurveyId()).orElse(null),
+                submission.getRespondentId(), questionService.getQuestionById(answer.getKey()),
+                answer.getValue(), submission.getSubmittedAt());
+    }
+
+    private void deleteSubmissionAnswer(long responseId) {
+        Submission submission = submissionRepository.findById(Submission.submissionIdOf(responseId)).orElse(null);
+        Map.Entry<Long, String> answer = submission == null ? null : answerAt(submission, Submission.slotOf(responseId));
+        if (answer == null || answer.getValue() == null) {
+            return;
+        }
+
+        if (submission.getAnswerCount() <= 1) {
+            submissionRepository.delete(submission);
+        } else {
+            // Null keeps the slot, so the ids of the remaining answers stay the same
+            submission.getAnswers().put(answer.getKey(), null);
+            submission.setAnswerCount(submission.getAnswerCount() - 1);
+            submissionRepository.save(submission);
+        }
+        Question question = questionService.getQuestionById(answer.getKey());
+        afterCommit(() -> answerTallyService.remove(submission.getSurveyId(), question, answer.getValue()));
+    }
+
+    /**
+     * Runs an update of the in-memory counters once the surrounding transaction commits,
+     * so a rollback leaves no deltas for answers that were never stored. Without a
+     * transaction the writes above have committed already and it runs at once.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Map.Entry<Long, String> answerAt(Submission submission, int slot) {
+        int current = 0;
+        for (Map.Entry<Long, String> answer : new TreeMap<>(submission.getAnswers()).entrySet()) {
+            if (current++ == slot) {
+                return answer;
+            }
+        }
+        return null;
+    }
+
+    private List<ResponseView> withSubmissionAnswers(List<ResponseView> responses, Long surveyId,
+                                                     List<SubmissionView> submissions, long after) {
+        if (submissions.isEmpty()) {
+            return responses;
+        }
+        Map<Long, String> questionTexts = new HashMap<>();
+        for (QuestionSummary question : questionRepository.findSummariesBySurveyId(surveyId)) {
+            questionTexts.put(question.questionId(), question.questionText());
+        }
+        List<ResponseView> combined = new ArrayList<>(responses);
+        for (SubmissionView submission : submissions) {
+            combined.addAll(submission.toResponseViews(questionTexts, after));
+        }
+        return combined;
+    }
+
+    private static SubmissionView toView(Submission submission) {
+        return new SubmissionView(submission.getSubmissionId(), submission.getSurveyId(), submission.getRespondentId(),
+                submission.getSubmittedAt(), submission.getAnswers());
+    }
+
+    // Served from the definition cache, which the public form has usually warmed already
+    private List<Question> getQuestions(Survey survey) {
+        SurveyDefinitionCache.SurveyDefinition definition = surveyDefinitionCache.get(survey.getSurveyLink());
+        return definition != null ? definition.questions() : questionService.getQuestionsBySurvey(survey);
+    }
+}
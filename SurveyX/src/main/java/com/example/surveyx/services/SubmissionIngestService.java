@@ -0,0 +1,367 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Response;
+import com.example.surveyx.models.Submission;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.SubmissionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.UncategorizedDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind pipeline for public survey submissions.
+ *
+ * Request threads validate a submission and hand it to a bounded queue; a single
+ * background writer drains the queue and persists whole batches of submissions
+ * with batch inserts in one transaction, as answer rows or, in the submission
+ * layout, one submission row each (see {@link ResponseService}). When the queue is full
+ * {@link #enqueue} returns false so the caller can shed load, and on shutdown the
+ * writer keeps draining until the queue is empty. Submissions that carry an
+ * idempotency key are deduplicated against stored keys by {@link SubmissionKeyService}.
+ *
+ * A batch the database keeps rejecting (constraint violations, e.g. a survey purged
+ * while its submissions were queued) is split in halves until the offending
+ * submissions are isolated; those are logged and dropped so the rest get written.
+ * Failures that are not about the data, such as a lost connection or a lock timeout,
+ * are retried until the database is back.
+ */
+@Service
+public class SubmissionIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionIngestService.class);
+
+    private static final String INSERT_RESPONSE_SQL =
+            "INSERT INTO responses (survey_id, respondent_id, question_id, answer_text, submitted_at) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+
+    // Width of responses.answer_text
+    public static final int MAX_ANSWER_LENGTH = 255;
+
+    private static final String INCREMENT_RESPONSE_COUNT_SQL =
+            "UPDATE surveys SET response_count = COALESCE(response_count, 0) + ? WHERE survey_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AnswerTallyService answerTallyService;
+
+    @Autowired
+    private AnswerSketchService answerSketchService;
+
+    @Autowired
+    private ResponseService responseService;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private SubmissionKeyService submissionKeyService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.ingest.jdbc-batch-size:1000}")
+    private int jdbcBatchSize;
+
+    @Value("${app.ingest.flush-interval-ms:100}")
+    private long flushIntervalMs;
+
+    @Value("${app.ingest.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${app.ingest.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.ingest.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${app.ingest.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    private BlockingQueue<PendingSubmission> queue;
+
+    private Thread writer;
+
+    private volatile boolean accepting;
+
+    private Counter dropped;
+
+    public record Answer(Question question, String answerText) {
+    }
+
+    // idempotencyKey is null when the client did not send one
+    public record PendingSubmission(Long surveyId, UUID respondentId, LocalDateTime submittedAt, List<Answer> answers,
+                                    String idempotencyKey) {
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        dropped = meterRegistry.counter("submissions.dropped");
+        accepting = true;
+        writer = new Thread(this::drainLoop, "submission-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        accepting = false;
+        writer.join(shutdownTimeoutMs);
+        if (writer.isAlive()) {
+            writer.interrupt();
+            logger.error("Submission writer did not drain within {} ms, {} submissions left in queue",
+                    shutdownTimeoutMs, queue.size());
+        }
+    }
+
+    /**
+     * Checks a submission against the survey's questions and turns it into a queue entry.
+     *
+     * @throws IllegalArgumentException if an answer references a question outside the survey,
+     *                                  is longer than {@link #MAX_ANSWER_LENGTH}, rates outside
+     *                                  the rating scale or a required question is left unanswered
+     */
+    public PendingSubmission prepare(Survey survey, List<Question> questions, List<Response> responses,
+                                     String idempotencyKey) {
+        if (responses == null || responses.isEmpty()) {
+            throw new IllegalArgumentException("Submission contains no answers");
+        }
+
+        Map<Long, Question> questionsById = new HashMap<>();
+        for (Question question : questions) {
+            questionsById.put(question.getQuestionId(), question);
+        }
+
+        List<Answer> answers = new ArrayList<>(responses.size());
+        Set<Long> seen = new HashSet<>();
+        Set<Long> answered = new HashSet<>();
+        for (Response response : responses) {
+            Long questionId = response.getQuestion() != null ? response.getQuestion().getQuestionId() : null;
+            if (questionId == null || !questionsById.containsKey(questionId)) {
+                throw new IllegalArgumentException("Answer references a question that is not part of this survey");
+            }
+            if (!seen.add(questionId)) {
+                throw new IllegalArgumentException("Question " + questionId + " was answered more than once");
+            }
+            if (response.getAnswerText() != null && response.getAnswerText().length() > MAX_ANSWER_LENGTH) {
+                throw new IllegalArgumentException("Answer to question " + questionId + " is longer than "
+                        + MAX_ANSWER_LENGTH + " characters");
+            }
+            if ("rating".equals(questionsById.get(questionId).getQuestionType())
+                    && response.getAnswerText() != null && !response.getAnswerText().isBlank()
+                    && AnswerTallyService.toRating(response.getAnswerText()) == null) {
+                throw new IllegalArgumentException("Answer to question " + questionId + " is not a rating from "
+                        + AnswerTallyService.RATING_MIN + " to " + AnswerTallyService.RATING_MAX);
+            }
+            answers.add(new Answer(questionsById.get(questionId), response.getAnswerText()));
+            if (response.getAnswerText() != null && !response.getAnswerText().isBlank()) {
+                answered.add(questionId);
+            }
+        }
+
+        for (Question question : questions) {
+            if (Boolean.TRUE.equals(question.getRequired()) && !answered.contains(question.getQuestionId())) {
+                throw new IllegalArgumentException("Required question " + question.getQuestionId() + " was not answered");
+            }
+        }
+
+        return new PendingSubmission(survey.getSurveyId(), UUID.randomUUID(), LocalDateTime.now(), answers,
+                idempotencyKey);
+    }
+
+    /**
+     * Queues a submission for the background writer.
+     *
+     * @return false if the queue is full or the service is shutting down
+     */
+    public boolean enqueue(PendingSubmission submission) {
+        return accepting && queue.offer(submission);
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<PendingSubmission> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingSubmission first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!batch.isEmpty() || !queue.isEmpty()) {
+            logger.error("Submission writer stopped with {} unwritten submissions", batch.size() + queue.size());
+        }
+    }
+
+    private void writeWithRetry(List<PendingSubmission> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeBatch(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (!isDataError(e)) {
+                    logger.error("Failed to write batch of {} submissions, retrying in {} ms",
+                            batch.size(), retryBackoffMs, e);
+                } else if (attempt >= maxAttempts) {
+                    // One retry settles a key stored concurrently by another node; beyond that it is the data
+                    logger.error("Database rejected a batch of {} submissions {} times, splitting it",
+                            batch.size(), attempt, e);
+                    writeSplitting(batch);
+                    return;
+                } else {
+                    logger.warn("Failed to write batch of {} submissions, retrying in {} ms",
+                            batch.size(), retryBackoffMs, e);
+                }
+            }
+            Thread.sleep(retryBackoffMs);
+        }
+    }
+
+    private void writeSplitting(List<PendingSubmission> batch) throws InterruptedException {
+        if (batch.size() == 1) {
+            drop(batch.get(0));
+            return;
+        }
+        int middle = batch.size() / 2;
+        for (List<PendingSubmission> half : List.of(batch.subList(0, middle), batch.subList(middle, batch.size()))) {
+            try {
+                writeBatch(half);
+            } catch (RuntimeException e) {
+                if (isDataError(e)) {
+                    writeSplitting(half);
+                } else {
+                    writeWithRetry(half);
+                }
+            }
+        }
+    }
+
+    /**
+     * A failure the database will repeat for the same submissions. A lost connection is
+     * non-transient too, as is the uncategorized error of a rollback that fails on it,
+     * so neither counts as the data's fault.
+     */
+    private static boolean isDataError(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException
+                && !(e instanceof NonTransientDataAccessResourceException)
+                && !(e instanceof UncategorizedDataAccessException);
+    }
+
+    private void drop(PendingSubmission submission) {
+        dropped.increment();
+        logger.error("Dropping submission {} to survey {} with {} answers, the database rejects it",
+                submission.respondentId(), submission.surveyId(), submission.answers().size());
+        if (submission.idempotencyKey() != null) {
+            // Lets a retry with the same key go through instead of replaying a submission that does not exist
+            submissionKeyService.release(submission.surveyId(), submission.idempotencyKey(), submission.respondentId());
+        }
+    }
+
+    private void writeBatch(List<PendingSubmission> batch) {
+        List<PendingSubmission> written = transactionTemplate.execute(status -> {
+            List<PendingSubmission> fresh = submissionKeyService.storeKeys(batch);
+            insert(fresh);
+            return fresh;
+        });
+
+        for (PendingSubmission submission : written) {
+            for (Answer answer : submission.answers()) {
+                answerTallyService.record(submission.surveyId(), answer.question(), answer.answerText());
+                answerSketchService.record(submission.surveyId(), answer.question(), answer.answerText());
+            }
+        }
+    }
+
+    private void insert(List<PendingSubmission> batch) {
+        boolean submissionLayout = responseService.usesSubmissionLayout();
+        List<Object[]> rows = new ArrayList<>();
+        List<Submission> submissions = new ArrayList<>();
+        Map<Long, Integer> submissionsPerSurvey = new HashMap<>();
+
+        for (PendingSubmission submission : batch) {
+            Map<Long, String> answers = submissionLayout
+                    ? Submission.answerMap(
+                            submission.answers().stream().map(answer -> answer.question().getQuestionId()).toList(),
+                            submission.answers().stream().map(Answer::answerText).toList())
+                    : null;
+            if (answers != null) {
+                submissions.add(new Submission(null, submission.surveyId(), submission.respondentId(),
+                        submission.submittedAt(), answers, answers.size()));
+            } else {
+                Timestamp submittedAt = Timestamp.valueOf(submission.submittedAt());
+                for (Answer answer : submission.answers()) {
+                    rows.add(new Object[]{
+                            submission.surveyId(),
+                            submission.respondentId(),
+                            answer.question().getQuestionId(),
+                            answer.answerText(),
+                            submittedAt
+                    });
+                }
+            }
+            submissionsPerSurvey.merge(submission.surveyId(), 1, Integer::sum);
+        }
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_RESPONSE_SQL, rows, jdbcBatchSize, (ps, row) -> {
+                ps.setLong(1, (Long) row[0]);
+                ps.setObject(2, row[1]);
+                ps.setLong(3, (Long) row[2]);
+                ps.setString(4, (String) row[3]);
+                ps.setTimestamp(5, (Timestamp) row[4]);
+            });
+        }
+        if (!submissions.isEmpty()) {
+            submissionRepository.saveAll(submissions);
+        }
+
+        List<Object[]> increments = new ArrayList<>(submissionsPerSurvey.size());
+        submissionsPerSurvey.forEach((surveyId, count) -> increments.add(new Object[]{count, surveyId}));
+        jdbcTemplate.batchUpdate(INCREMENT_RESPONSE_COUNT_SQL, increments);
+    }
+}
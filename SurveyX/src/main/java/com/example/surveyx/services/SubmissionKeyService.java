@@ -0,0 +1,170 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.services.SubmissionIngestService.PendingSubmission;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Deduplicates public submissions retried with the same {@code Idempotency-Key}.
+ *
+ * Request threads claim a key in a bounded in-memory window; a retry that finds its key
+ * there gets the original respondent id back without touching the write path. A key
+ * missing from the window (another node, a restart, an evicted entry) is looked up in
+ * {@code submission_keys} before it is claimed, and a stored respondent id is replayed
+ * the same way. The submission writer records every key in that table in the same
+ * transaction as the answers and skips submissions whose key is already stored, which
+ * covers the one case the lookup cannot: a retry reaching another node while the
+ * original is still queued. Stored keys are deleted after {@code retention}.
+ */
+@Service
+public class SubmissionKeyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionKeyService.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final String FIND_STORED_KEYS_SQL =
+            "SELECT idempotency_key FROM submission_keys WHERE survey_id = ? AND idempotency_key IN (%s)";
+
+    private static final String FIND_RESPONDENT_SQL =
+            "SELECT respondent_id FROM submission_keys WHERE survey_id = ? AND idempotency_key = ?";
+
+    private static final String INSERT_KEY_SQL =
+            "INSERT INTO submission_keys (survey_id, idempotency_key, respondent_id, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final String DELETE_EXPIRED_KEYS_SQL =
+            "DELETE FROM submission_keys WHERE created_at < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.idempotency.window-size:100000}")
+    private long windowSize;
+
+    @Value("${app.idempotency.window-ttl:1h}")
+    private Duration windowTtl;
+
+    @Value("${app.idempotency.retention:7d}")
+    private Duration retention;
+
+    private Cache<WindowKey, UUID> window;
+
+    private record WindowKey(Long surveyId, String idempotencyKey) {
+    }
+
+    @PostConstruct
+    public void init() {
+        window = Caffeine.newBuilder()
+                .maximumSize(windowSize)
+                .expireAfterWrite(windowTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, window, "submissionKeys");
+    }
+
+    public static boolean isValid(String idempotencyKey) {
+        return idempotencyKey != null && !idempotencyKey.isBlank() && idempotencyKey.length() <= MAX_KEY_LENGTH;
+    }
+
+    /**
+     * @return the respondent id of an earlier submission with this key, or null
+     */
+    public UUID find(Long surveyId, String idempotencyKey) {
+        return window.getIfPresent(new WindowKey(surveyId, idempotencyKey));
+    }
+
+    /**
+     * Claims the key for a new submission, atomically against concurrent retries. If the
+     * window does not know the key, the stored keys are checked first.
+     *
+     * @return null if the key is now this submission's, otherwise the respondent id that holds it
+     */
+    public UUID claim(Long surveyId, String idempotencyKey, UUID respondentId) {
+        // Concurrent claims of one key wait for a single lookup
+        UUID holder = window.get(new WindowKey(surveyId, idempotencyKey), key -> {
+            List<UUID> stored = jdbcTemplate.queryForList(FIND_RESPONDENT_SQL, UUID.class, surveyId, idempotencyKey);
+            return stored.isEmpty() ? respondentId : stored.get(0);
+        });
+        return respondentId.equals(holder) ? null : holder;
+    }
+
+    /**
+     * Gives up a claim whose submission was not accepted, so a retry can go through.
+     */
+    public void release(Long surveyId, String idempotencyKey, UUID respondentId) {
+        window.asMap().remove(new WindowKey(surveyId, idempotencyKey), respondentId);
+    }
+
+    /**
+     * Stores the keys of a batch and drops the submissions whose key is stored already,
+     * or repeated earlier in the batch. Runs in the writer's transaction; if another
+     * node stores one of the keys concurrently the insert fails on the primary key and
+     * the writer's retry then finds it here.
+     *
+     * @return the submissions to write, in batch order
+     */
+    public List<PendingSubmission> storeKeys(List<PendingSubmission> batch) {
+        Map<Long, Set<String>> keysBySurvey = new HashMap<>();
+        for (PendingSubmission submission : batch) {
+            if (submission.idempotencyKey() != null) {
+                keysBySurvey.computeIfAbsent(submission.surveyId(), id -> new HashSet<>()).add(submission.idempotencyKey());
+            }
+        }
+        if (keysBySurvey.isEmpty()) {
+            return batch;
+        }
+
+        Set<WindowKey> stored = new HashSet<>();
+        keysBySurvey.forEach((surveyId, keys) -> {
+            String sql = String.format(FIND_STORED_KEYS_SQL, String.join(", ", Collections.nCopies(keys.size(), "?")));
+            List<Object> args = new ArrayList<>(keys.size() + 1);
+            args.add(surveyId);
+            args.addAll(keys);
+            for (String key : jdbcTemplate.queryForList(sql, String.class, args.toArray())) {
+                stored.add(new WindowKey(surveyId, key));
+            }
+        });
+
+        List<PendingSubmission> fresh = new ArrayList<>(batch.size());
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (PendingSubmission submission : batch) {
+            if (submission.idempotencyKey() == null) {
+                fresh.add(submission);
+            } else if (stored.add(new WindowKey(submission.surveyId(), submission.idempotencyKey()))) {
+                fresh.add(submission);
+                rows.add(new Object[]{submission.surveyId(), submission.idempotencyKey(), submission.respondentId(), now});
+            } else {
+                logger.debug("Skipping duplicate submission {} to survey {}", submission.respondentId(), submission.surveyId());
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_KEY_SQL, rows);
+        return fresh;
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED_KEYS_SQL, Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+        if (deleted > 0) {
+            logger.info("Deleted {} expired submission keys", deleted);
+        }
+    }
+}
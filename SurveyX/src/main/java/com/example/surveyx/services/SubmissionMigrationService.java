@@ -0,0 +1,202 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.config.WorkerThreads;
+import com.example.surveyx.models.Submission;
+import com.example.surveyx.repositories.SubmissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Converts responses stored one row per answer into the submission layout.
+ *
+ * A survey is worked through in respondent id order, {@code batch-size} respondents per
+ * transaction; each transaction inserts their submissions and deletes their answer rows
+ * together, so every respondent is in exactly one layout at any time and an interrupted
+ * run can simply be started again. Respondents whose answers do not fit one submission
+ * (see {@link Submission#answerMap}) stay as answer rows. With
+ * {@code app.responses.migrate-on-startup} all surveys are migrated in the background
+ * once the application is up.
+ *
+ * A moved answer is listed under its synthetic id ({@link Submission#answerId}). The
+ * {@code response_id} it had as a row is recorded in {@code migrated_response_ids} in the
+ * same transaction and keeps working for {@code GET}/{@code DELETE /api/responses/{id}}.
+ * A keyset cursor taken before the migration can still return moved answers a second time.
+ */
+@Service
+public class SubmissionMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionMigrationService.class);
+
+    private static final String FIND_SURVEYS_SQL =
+            "SELECT DISTINCT survey_id FROM responses WHERE respondent_id IS NOT NULL ORDER BY survey_id";
+
+    private static final String FIRST_RESPONDENTS_SQL =
+            "SELECT DISTINCT respondent_id FROM responses WHERE survey_id = ? AND respondent_id IS NOT NULL " +
+                    "ORDER BY respondent_id LIMIT ?";
+
+    private static final String NEXT_RESPONDENTS_SQL =
+            "SELECT DISTINCT respondent_id FROM responses WHERE survey_id = ? AND respondent_id > ? " +
+                    "ORDER BY respondent_id LIMIT ?";
+
+    private static final String FIND_ANSWERS_SQL =
+            "SELECT response_id, respondent_id, question_id, answer_text, submitted_at FROM responses " +
+                    "WHERE survey_id = ? AND respondent_id >= ? AND respondent_id <= ? " +
+                    "ORDER BY respondent_id, response_id";
+
+    private static final String DELETE_RESPONSE_SQL =
+            "DELETE FROM responses WHERE response_id = ?";
+
+    private static final String INSERT_MOVED_SQL =
+            "INSERT INTO migrated_response_ids (response_id, survey_id, answer_id) VALUES (?, ?, ?)";
+
+    private static final String FIND_MOVED_SQL =
+            "SELECT answer_id FROM migrated_response_ids WHERE response_id = ?";
+
+    private static final String DELETE_MOVED_SQL =
+            "DELETE FROM migrated_response_ids WHERE response_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.responses.migrate-on-startup:false}")
+    private boolean migrateOnStartup;
+
+    @Value("${app.responses.migration-batch-size:500}")
+    private int batchSize;
+
+    public record MigrationResult(Long surveyId, long migrated, long skipped) {
+    }
+
+    private record AnswerRow(Long responseId, UUID respondentId, Long questionId, String answerText,
+                             LocalDateTime submittedAt) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (migrateOnStartup) {
+            workerThreads.factory("submission-migration-").newThread(this::migrateAll).start();
+        }
+    }
+
+    public void migrateAll() {
+        for (Long surveyId : jdbcTemplate.queryForList(FIND_SURVEYS_SQL, Long.class)) {
+            try {
+                migrateSurvey(surveyId);
+            } catch (RuntimeException e) {
+                logger.error("Migrating survey {} to submissions failed", surveyId, e);
+            }
+        }
+    }
+
+    /**
+     * Moves one survey's respondents from answer rows to submissions. The moved answers
+     * are listed under new response ids; their old ids still resolve, see the class comment.
+     */
+    public MigrationResult migrateSurvey(Long surveyId) {
+        long migrated = 0;
+        long skipped = 0;
+        UUID last = null;
+        while (true) {
+            List<UUID> respondents = last == null
+                    ? jdbcTemplate.queryForList(FIRST_RESPONDENTS_SQL, UUID.class, surveyId, batchSize)
+                    : jdbcTemplate.queryForList(NEXT_RESPONDENTS_SQL, UUID.class, surveyId, last, batchSize);
+            if (respondents.isEmpty()) {
+                break;
+            }
+            int converted = migrateBatch(surveyId, respondents.get(0), respondents.get(respondents.size() - 1));
+            migrated += converted;
+            skipped += respondents.size() - converted;
+            last = respondents.get(respondents.size() - 1);
+        }
+        logger.info("Migrated survey {} to submissions: {} respondents moved, {} left as answer rows",
+                surveyId, migrated, skipped);
+        return new MigrationResult(surveyId, migrated, skipped);
+    }
+
+    private int migrateBatch(Long surveyId, UUID first, UUID last) {
+        Integer converted = transactionTemplate.execute(status -> {
+            Map<UUID, List<AnswerRow>> byRespondent = new LinkedHashMap<>();
+            jdbcTemplate.query(FIND_ANSWERS_SQL, rs -> {
+                AnswerRow row = new AnswerRow(rs.getLong(1), rs.getObject(2, UUID.class),
+                        (Long) rs.getObject(3, Long.class), rs.getString(4),
+                        toLocalDateTime(rs.getTimestamp(5)));
+                byRespondent.computeIfAbsent(row.respondentId(), id -> new ArrayList<>()).add(row);
+            }, surveyId, first, last);
+
+            List<Submission> submissions = new ArrayList<>();
+            List<List<AnswerRow>> movedRows = new ArrayList<>();
+            List<Object[]> deletes = new ArrayList<>();
+            byRespondent.forEach((respondentId, rows) -> {
+                Map<Long, String> answers = Submission.answerMap(
+                        rows.stream().map(AnswerRow::questionId).toList(),
+                        rows.stream().map(AnswerRow::answerText).toList());
+                if (answers == null) {
+                    return;
+                }
+                submissions.add(new Submission(null, surveyId, respondentId, rows.get(0).submittedAt(),
+                        answers, answers.size()));
+                movedRows.add(rows);
+                rows.forEach(row -> deletes.add(new Object[]{row.responseId()}));
+            });
+
+            submissionRepository.saveAll(submissions);
+            jdbcTemplate.batchUpdate(INSERT_MOVED_SQL, movedIds(surveyId, submissions, movedRows));
+            jdbcTemplate.batchUpdate(DELETE_RESPONSE_SQL, deletes);
+            return submissions.size();
+        });
+        return converted == null ? 0 : converted;
+    }
+
+    /**
+     * @return the synthetic id of the answer a migrated answer row was moved to, or null
+     *         if the id was never migrated
+     */
+    public Long findMovedAnswerId(long responseId) {
+        List<Long> answerIds = jdbcTemplate.queryForList(FIND_MOVED_SQL, Long.class, responseId);
+        return answerIds.isEmpty() ? null : answerIds.get(0);
+    }
+
+    public void forgetMovedAnswer(long responseId) {
+        jdbcTemplate.update(DELETE_MOVED_SQL, responseId);
+    }
+
+    // Rows without an answer text have no slot in the submission and are not recorded
+    private static List<Object[]> movedIds(Long surveyId, List<Submission> submissions, List<List<AnswerRow>> movedRows) {
+        List<Object[]> moved = new ArrayList<>();
+        for (int i = 0; i < submissions.size(); i++) {
+            List<Long> questionIds = new ArrayList<>(submissions.get(i).getAnswers().keySet());
+            for (AnswerRow row : movedRows.get(i)) {
+                if (row.answerText() != null) {
+                    long answerId = Submission.answerId(submissions.get(i).getSubmissionId(),
+                            questionIds.indexOf(row.questionId()));
+                    moved.add(new Object[]{row.responseId(), surveyId, answerId});
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
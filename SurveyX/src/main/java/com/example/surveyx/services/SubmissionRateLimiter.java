@@ -0,0 +1,164 @@
+package com.example.surveyx.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for response writes.
+ *
+ * Public submissions pass two token buckets: one per survey link and client address,
+ * then one per survey link ({@code submission_rate_limit} on the survey, or
+ * {@code survey-per-minute}). Client buckets live in a fixed array of stripes picked by
+ * hash, so memory stays bounded however many addresses show up; clients that share a
+ * stripe share its budget. All write endpoints also take a permit from a global
+ * concurrency cap that is never waited for. Rejections are counted in
+ * {@code submissions.rejected} by reason.
+ */
+@Service
+public class SubmissionRateLimiter {
+
+    public static final String REASON_CLIENT = "client";
+    public static final String REASON_SURVEY = "survey";
+    public static final String REASON_CONCURRENCY = "concurrency";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.rate-limit.survey-per-minute:6000}")
+    private int surveyPerMinute;
+
+    @Value("${app.rate-limit.client-per-minute:30}")
+    private int clientPerMinute;
+
+    @Value("${app.rate-limit.client-stripes:4096}")
+    private int clientStripes;
+
+    @Value("${app.rate-limit.max-concurrent-writes:10}")
+    private int maxConcurrentWrites;
+
+    @Value("${app.rate-limit.concurrency-retry-after-seconds:1}")
+    private long concurrencyRetryAfterSeconds;
+
+    @Value("${app.survey-cache.maximum-size:10000}")
+    private long maximumSurveys;
+
+    private TokenBucket[] clientBuckets;
+
+    private Cache<String, TokenBucket> surveyBuckets;
+
+    private Semaphore writePermits;
+
+    private Counter admitted;
+    private Counter rejectedClient;
+    private Counter rejectedSurvey;
+    private Counter rejectedConcurrency;
+
+    /**
+     * Why a request was turned away and when it is worth retrying.
+     */
+    public record Rejection(String reason, long retryAfterSeconds) {
+    }
+
+    private static final class TokenBucket {
+        private double tokens = -1;
+        private long refilledAt;
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+         */
+        synchronized long tryAcquire(int perMinute, long now) {
+            double perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            // Capacity is a minute's worth; a new bucket starts full
+            tokens = tokens < 0 ? perMinute : Math.min(perMinute, tokens + (now - refilledAt) * perNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / perNano);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // Power of two so the stripe is a mask of the hash
+        int stripes = Integer.highestOneBit(Math.max(1, clientStripes - 1)) << 1;
+        clientBuckets = new TokenBucket[stripes];
+        for (int i = 0; i < stripes; i++) {
+            clientBuckets[i] = new TokenBucket();
+        }
+        surveyBuckets = Caffeine.newBuilder()
+                .maximumSize(maximumSurveys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        writePermits = new Semaphore(maxConcurrentWrites);
+
+        admitted = meterRegistry.counter("submissions.admitted");
+        rejectedClient = meterRegistry.counter("submissions.rejected", "reason", REASON_CLIENT);
+        rejectedSurvey = meterRegistry.counter("submissions.rejected", "reason", REASON_SURVEY);
+        rejectedConcurrency = meterRegistry.counter("submissions.rejected", "reason", REASON_CONCURRENCY);
+        Gauge.builder("submissions.writes.active", writePermits, p -> maxConcurrentWrites - p.availablePermits())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token for one public submission.
+     *
+     * @param surveyLimit the survey's own submissions per minute, or null for the default
+     * @return null if the submission may go ahead
+     */
+    public Rejection tryAcquire(String surveyLink, Integer surveyLimit, String clientAddress) {
+        long now = System.nanoTime();
+
+        int hash = (surveyLink + '|' + clientAddress).hashCode();
+        TokenBucket client = clientBuckets[(hash ^ (hash >>> 16)) & (clientBuckets.length - 1)];
+        long wait = client.tryAcquire(clientPerMinute, now);
+        if (wait > 0) {
+            rejectedClient.increment();
+            return new Rejection(REASON_CLIENT, toRetryAfterSeconds(wait));
+        }
+
+        int perMinute = surveyLimit != null ? surveyLimit : surveyPerMinute;
+        wait = surveyBuckets.get(surveyLink, link -> new TokenBucket()).tryAcquire(perMinute, now);
+        if (wait > 0) {
+            rejectedSurvey.increment();
+            return new Rejection(REASON_SURVEY, toRetryAfterSeconds(wait));
+        }
+
+        admitted.increment();
+        return null;
+    }
+
+    /**
+     * Claims one of the write slots without waiting. Every successful call must be
+     * paired with {@link #endWrite()}.
+     *
+     * @return null if a slot was claimed
+     */
+    public Rejection tryStartWrite() {
+        if (writePermits.tryAcquire()) {
+            return null;
+        }
+        rejectedConcurrency.increment();
+        return new Rejection(REASON_CONCURRENCY, concurrencyRetryAfterSeconds);
+    }
+
+    public void endWrite() {
+        writePermits.release();
+    }
+
+    private static long toRetryAfterSeconds(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+}
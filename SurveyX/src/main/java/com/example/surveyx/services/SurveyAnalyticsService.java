@@ -1,28 +1,39 @@
 package com.example.surveyx.services;
 
-import com.example.surveyx.models.Response;
+import com.example.surveyx.config.WorkerThreads;
+import com.example.surveyx.dto.ResponseView;
+import com.example.surveyx.dto.ResponseWatermark;
 import com.example.surveyx.models.Survey;
 import com.example.surveyx.models.SurveyAnalytics;
-import com.example.surveyx.repositories.ResponseRepository;
 import com.example.surveyx.repositories.SurveyAnalyticsRepository;
 import com.example.surveyx.repositories.SurveyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 @Service
 public class SurveyAnalyticsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SurveyAnalyticsService.class);
+
     @Autowired
     private SurveyAnalyticsRepository surveyAnalyticsRepository;
 
@@ -30,13 +41,81 @@ public class SurveyAnalyticsService {
     private SurveyRepository surveyRepository;
 
     @Autowired
-    private ResponseRepository responseRepository;
+    private ResponseService responseService;
+
+    @Autowired
+    private LlmClient llmClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
-    @Value("${openai.api.key}")
-    private String openaiApiKey;
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.analytics.chunk.max-tokens:3000}")
+    private int chunkMaxTokens;
+
+    @Value("${app.analytics.chunk.parallelism:4}")
+    private int chunkParallelism;
+
+    @Value("${app.analytics.jobs.max-concurrency:2}")
+    private int jobsMaxConcurrency;
+
+    @Value("${app.analytics.min-new-responses:1}")
+    private long minNewResponses;
+
+    @Value("${app.analytics.incremental.enabled:true}")
+    private boolean incrementalEnabled;
+
+    @Value("${app.analytics.incremental.max-folds:20}")
+    private int incrementalMaxFolds;
+
+    private ExecutorService chunkExecutor;
+
+    private static final String ANALYST_PROMPT =
+            "You are a survey analyst. Analyze the survey data and provide insights. " +
+                    "Return JSON with two fields: 'summary' (a brief overview) and 'insights' (detailed findings). " +
+                    "Ensure the JSON is properly formatted and valid.";
+
+    private static final String CHUNK_PROMPT =
+            "You are a survey analyst. You are given one slice of the answers to a survey question. " +
+                    "Return JSON with two fields: 'summary' (the main points of these answers in at most 100 words) " +
+                    "and 'insights' (themes, sentiment and notable outliers as a JSON object). " +
+                    "Ensure the JSON is properly formatted and valid.";
+
+    private static final String REDUCE_PROMPT =
+            "You are a survey analyst. You are given partial analyses, each covering a slice of one survey's answers. " +
+                    "Combine them into a single analysis of everything they cover. " +
+                    "Return JSON with two fields: 'summary' (a brief overview) and 'insights' (detailed findings). " +
+                    "Ensure the JSON is properly formatted and valid.";
+
+    private static final String MERGE_PROMPT =
+            "You are a survey analyst. You are given the previous analysis of a survey and an analysis of " +
+                    "responses that arrived since. Update the previous analysis with the new findings, keeping " +
+                    "everything from it that still holds and weighting both by their number of responses. " +
+                    "Return JSON with two fields: 'summary' (a brief overview) and 'insights' (detailed findings). " +
+                    "Ensure the JSON is properly formatted and valid.";
+
+    /**
+     * Chunk workers and job threads (single-prompt and final reduce calls) can all be
+     * in an LLM call at once; with fewer permits than that, some wait for a permit and
+     * time out.
+     */
+    @PostConstruct
+    public void start() {
+        int peakCalls = chunkParallelism + jobsMaxConcurrency;
+        if (llmClient.getMaxConcurrentRequests() < peakCalls) {
+            logger.warn("app.llm.max-concurrent-requests={} is below the {} concurrent calls analytics can make " +
+                            "(chunk.parallelism + jobs.max-concurrency); analytics calls may fail waiting for a permit",
+                    llmClient.getMaxConcurrentRequests(), peakCalls);
+        }
+        chunkExecutor = Executors.newFixedThreadPool(chunkParallelism, workerThreads.factory("analytics-chunk-"));
+    }
 
-    @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}")
-    private String openaiApiUrl;
+    @PreDestroy
+    public void stop() {
+        chunkExecutor.shutdownNow();
+    }
 
     public SurveyAnalytics getAnalyticsForSurvey(Long surveyId) {
         Survey survey = surveyRepository.findById(surveyId).orElse(null);
@@ -44,6 +123,12 @@ public class SurveyAnalyticsService {
         return surveyAnalyticsRepository.findBySurvey(survey);
     }
 
+    /**
+     * A failed LLM call or unusable reply propagates to the caller and leaves the stored
+     * analysis as it was.
+     *
+     * @return the new or unchanged analysis, or null if the survey does not exist
+     */
     public SurveyAnalytics generateAnalytics(Long surveyId) {
         Survey survey = surveyRepository.findById(surveyId).orElse(null);
         if (survey == null) return null;
@@ -55,33 +140,249 @@ public class SurveyAnalyticsService {
             analytics.setCreatedAt(LocalDateTime.now());
         }
 
-        try {
-            List<Response> responses = responseRepository.findBySurvey(survey);
+        ResponseWatermark watermark = responseService.getWatermark(surveyId);
+        Change change = changeSince(analytics, watermark);
+        if (change != null && change.total() < Math.max(1, minNewResponses)) {
+            return analytics;
+        }
+
+        if (canFoldIncrementally(analytics, change)) {
+            List<ResponseView> newResponses =
+                    responseService.getResponsesAfter(surveyId, analytics.getLastResponseId());
+            JsonNode delta = analyze(survey, newResponses);
+            JsonNode merged = completeJson(MERGE_PROMPT,
+                    "Previous analysis of " + analytics.getAnalyzedResponseCount() + " responses:\n" +
+                            "Summary: " + analytics.getAnalysisSummary() + "\n" +
+                            "Insights: " + analytics.getInsights() + "\n\n" +
+                            "Analysis of " + newResponses.size() + " new responses:\n" +
+                            "Summary: " + delta.get("summary").asText() + "\n" +
+                            "Insights: " + delta.get("insights").toString());
+
+            analytics.setAnalysisSummary(merged.get("summary").asText());
+            analytics.setInsights(merged.get("insights").toString());
+            foldWatermark(analytics, newResponses, inputHash(survey, newResponses));
+            return surveyAnalyticsRepository.save(analytics);
+        }
+
+        List<ResponseView> responses = responseService.getResponseViews(surveyId);
+        String inputHash = inputHash(survey, responses);
 
+        if (!inputHash.equals(analytics.getInputHash())) {
             if (responses.isEmpty()) {
                 analytics.setAnalysisSummary("No responses have been collected for this survey yet.");
                 analytics.setInsights("{}");
-                return surveyAnalyticsRepository.save(analytics);
+            } else {
+                JsonNode result = analyze(survey, responses);
+                analytics.setAnalysisSummary(result.get("summary").asText());
+                analytics.setInsights(result.get("insights").toString());
             }
+        }
+
+        recordWatermark(analytics, responses, inputHash);
+        return surveyAnalyticsRepository.save(analytics);
+    }
+
+    /**
+     * @param belowWatermark added responses whose ids are under the watermark; pooled ids are
+     *                       handed out in blocks, so a later insert can carry a lower id
+     */
+    private record Change(long added, long removed, long belowWatermark) {
+        long total() {
+            return added + removed;
+        }
+    }
 
-            String prompt = formatSurveyData(survey, responses);
+    /**
+     * Responses added and removed since the stored analysis, or null if it has no usable
+     * watermark: never run, stored before watermarks were recorded, or the "no responses
+     * yet" placeholder while responses now exist.
+     */
+    private Change changeSince(SurveyAnalytics analytics, ResponseWatermark watermark) {
+        if (analytics.getAnalyticsId() == null || analytics.getAnalyzedResponseCount() == null) {
+            return null;
+        }
+        long analyzed = analytics.getAnalyzedResponseCount();
+        if (analyzed == 0) {
+            return watermark.responseCount() == 0 ? new Change(0, 0, 0) : null;
+        }
+        if (Objects.equals(analytics.getLastResponseId(), watermark.lastResponseId())
+                && analyzed == watermark.responseCount()) {
+            return new Change(0, 0, 0);
+        }
 
-            Map<String, String> analysisResult = callOpenAI(prompt);
+        long above = responseService.countResponsesAfter(analytics.getSurvey().getSurveyId(), analytics.getLastResponseId());
+        long unexplained = watermark.responseCount() - analyzed - above;
+        long below = Math.max(0, unexplained);
+        return new Change(above + below, Math.max(0, -unexplained), below);
+    }
 
-            analytics.setAnalysisSummary(analysisResult.get("summary"));
-            analytics.setInsights(analysisResult.get("insights"));
+    /**
+     * New responses can be folded into the stored analysis when nothing it covered was
+     * removed and all of them are above the watermark. After max-folds incremental runs the
+     * next run is a full rebuild, so errors from repeated merging do not accumulate.
+     */
+    private boolean canFoldIncrementally(SurveyAnalytics analytics, Change change) {
+        return incrementalEnabled
+                && change != null
+                && change.added() > 0
+                && change.removed() == 0
+                && change.belowWatermark() == 0
+                && analytics.getIncrementalRuns() < incrementalMaxFolds;
+    }
 
-            return surveyAnalyticsRepository.save(analytics);
+    private void foldWatermark(SurveyAnalytics analytics, List<ResponseView> newResponses, String deltaHash) {
+        for (ResponseView response : newResponses) {
+            if (response.responseId() > analytics.getLastResponseId()) {
+                analytics.setLastResponseId(response.responseId());
+            }
+            if (response.submittedAt() != null && (analytics.getLastResponseAt() == null
+                    || response.submittedAt().isAfter(analytics.getLastResponseAt()))) {
+                analytics.setLastResponseAt(response.submittedAt());
+            }
+        }
+        analytics.setAnalyzedResponseCount(analytics.getAnalyzedResponseCount() + newResponses.size());
+        // Chained, so it identifies the sequence of inputs rather than one full input
+        analytics.setInputHash(sha256(analytics.getInputHash() + deltaHash));
+        analytics.setIncrementalRuns(analytics.getIncrementalRuns() + 1);
+    }
 
-        } catch (Exception e) {
-            analytics.setAnalysisSummary("Error generating analysis: " + e.getMessage());
-            analytics.setInsights("{}");
-            return surveyAnalyticsRepository.save(analytics);
+    private void recordWatermark(SurveyAnalytics analytics, List<ResponseView> responses, String inputHash) {
+        Long lastResponseId = null;
+        LocalDateTime lastResponseAt = null;
+        for (ResponseView response : responses) {
+            if (lastResponseId == null || response.responseId() > lastResponseId) {
+                lastResponseId = response.responseId();
+            }
+            if (response.submittedAt() != null && (lastResponseAt == null || response.submittedAt().isAfter(lastResponseAt))) {
+                lastResponseAt = response.submittedAt();
+            }
+        }
+        analytics.setLastResponseId(lastResponseId);
+        analytics.setLastResponseAt(lastResponseAt);
+        analytics.setAnalyzedResponseCount((long) responses.size());
+        analytics.setInputHash(inputHash);
+        analytics.setIncrementalRuns(0);
+    }
+
+    /**
+     * SHA-256 over everything the prompt is built from, so an unchanged input is never sent to the model twice.
+     */
+    private String inputHash(Survey survey, List<ResponseView> responses) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, survey.getTitle());
+            update(digest, survey.getDescription());
+            for (ResponseView response : responses) {
+                update(digest, String.valueOf(response.responseId()));
+                if (response.question() != null) {
+                    update(digest, String.valueOf(response.question().questionId()));
+                    update(digest, response.question().questionText());
+                }
+                update(digest, response.answerText());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
+    private String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Surveys whose answers fit one prompt are analysed in a single call. Larger ones are
+     * split into token-budgeted chunks that are summarized in parallel (map), and the
+     * partial results are combined into the final summary and insights (reduce), in
+     * several budgeted rounds if they do not fit one prompt either.
+     */
+    private JsonNode analyze(Survey survey, List<ResponseView> responses) {
+        String header = surveyHeader(survey);
+        int budget = Math.max(1, chunkMaxTokens - PromptChunker.estimateTokens(header));
+        List<PromptChunker.Chunk> chunks = PromptChunker.chunk(responses, budget);
+        int totalTokens = chunks.stream().mapToInt(PromptChunker.Chunk::estimatedTokens).sum();
+        if (totalTokens <= budget) {
+            return completeJson(ANALYST_PROMPT, "Analyze this survey data:\n\n" + formatSurveyData(survey, responses));
+        }
+
+        List<String> partials = mapInParallel(chunks,
+                chunk -> renderPartial(chunk.render(), completeJson(CHUNK_PROMPT, header + chunk.render())));
+
+        while (true) {
+            List<List<String>> batches = PromptChunker.batch(partials, budget);
+            // Stop once everything fits, or if partials are too large to combine any further
+            if (batches.size() == 1 || batches.size() >= partials.size()) {
+                break;
+            }
+            partials = mapInParallel(batches,
+                    batch -> renderPartial(null, completeJson(REDUCE_PROMPT, header + String.join("\n", batch))));
+        }
+
+        return completeJson(REDUCE_PROMPT, header + String.join("\n", partials));
+    }
+
+    private String surveyHeader(Survey survey) {
+        return "Survey Title: " + survey.getTitle() + "\n" +
+                "Description: " + survey.getDescription() + "\n\n";
+    }
+
+    private String renderPartial(String source, JsonNode partial) {
+        StringBuilder text = new StringBuilder("Partial analysis");
+        if (source != null) {
+            text.append(" of ").append(source, 0, source.indexOf('\n'));
+        }
+        text.append(":\nSummary: ").append(partial.get("summary").asText())
+                .append("\nInsights: ").append(partial.get("insights").toString())
+                .append('\n');
+        return text.toString();
+    }
+
+    private <T> List<String> mapInParallel(List<T> items, Function<T, String> task) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(item), chunkExecutor));
+        }
+        try {
+            List<String> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<String> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * @return the model's reply parsed as an object with 'summary' and 'insights'
+     */
+    private JsonNode completeJson(String systemPrompt, String userPrompt) {
+        String content = llmClient.complete(systemPrompt, userPrompt, 0.7);
+        try {
+            JsonNode node = objectMapper.readTree(content);
+            if (node.get("summary") == null || node.get("insights") == null) {
+                throw new IllegalStateException("Analysis was missing 'summary' or 'insights'");
+            }
+            return node;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Analysis was not valid JSON", e);
+        }
+    }
 
-    private String formatSurveyData(Survey survey, List<Response> responses) {
+    String formatSurveyData(Survey survey, List<ResponseView> responses) {
         StringBuilder data = new StringBuilder();
         data.append("Survey Title: ").append(survey.getTitle()).append("\n");
         data.append("Description: ").append(survey.getDescription()).append("\n\n");
@@ -89,15 +390,15 @@ public class SurveyAnalyticsService {
         Map<Long, List<String>> responsesByQuestion = new HashMap<>();
         Map<Long, String> questionTexts = new HashMap<>();
 
-        for (Response response : responses) {
-            if (response.getQuestion() != null) {
-                Long qId = response.getQuestion().getQuestionId();
-                questionTexts.put(qId, response.getQuestion().getQuestionText());
+        for (ResponseView response : responses) {
+            if (response.question() != null) {
+                Long qId = response.question().questionId();
+                questionTexts.put(qId, response.question().questionText());
 
                 if (!responsesByQuestion.containsKey(qId)) {
                     responsesByQuestion.put(qId, new ArrayList<>());
                 }
-                responsesByQuestion.get(qId).add(response.getAnswerText());
+                responsesByQuestion.get(qId).add(response.answerText());
             }
         }
 
@@ -117,84 +418,6 @@ public class SurveyAnalyticsService {
         return data.toString();
     }
 
-    private Map<String, String> callOpenAI(String prompt) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + openaiApiKey);
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-3.5-turbo"); // Use a valid model
-
-            List<Map<String, String>> messages = new ArrayList<>();
-
-            Map<String, String> systemMessage = new HashMap<>();
-            systemMessage.put("role", "system");
-            systemMessage.put("content",
-                    "You are a survey analyst. Analyze the survey data and provide insights. " +
-                            "Return JSON with two fields: 'summary' (a brief overview) and 'insights' (detailed findings). " +
-                            "Ensure the JSON is properly formatted and valid."
-            );
-            messages.add(systemMessage);
-
-            Map<String, String> userMessage = new HashMap<>();
-            userMessage.put("role", "user");
-            userMessage.put("content", "Analyze this survey data:\n\n" + prompt);
-            messages.add(userMessage);
-
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", 0.7);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-            RestTemplate restTemplate = new RestTemplate();
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    "https://api.openai.com/v1/chat/completions",
-                    entity,
-                    Map.class
-            );
-
-            Map<String, Object> responseBody = response.getBody();
-            String content = extractContentFromResponse(responseBody);
-
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode;
-
-            try {
-                rootNode = mapper.readTree(content);
-                String summary = rootNode.get("summary").asText();
-                String insights = rootNode.get("insights").toString();
-
-                Map<String, String> result = new HashMap<>();
-                result.put("summary", summary);
-                result.put("insights", insights);
-                return result;
-            } catch (Exception e) {
-                Map<String, String> fallback = new HashMap<>();
-                fallback.put("summary", "Analysis completed but format was unexpected.");
-                fallback.put("insights", "{}");
-                return fallback;
-            }
-
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("summary", "Error analyzing survey: " + e.getMessage());
-            error.put("insights", "{}");
-            return error;
-        }
-    }
-
-    private String extractContentFromResponse(Map<String, Object> response) {
-        try {
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-            Map<String, Object> firstChoice = choices.get(0);
-            Map<String, String> message = (Map<String, String>) firstChoice.get("message");
-            return message.get("content");
-        } catch (Exception e) {
-            return "{}";
-        }
-    }
-
     public void deleteAnalytics(Long analyticsId) {
         surveyAnalyticsRepository.deleteById(analyticsId);
     }
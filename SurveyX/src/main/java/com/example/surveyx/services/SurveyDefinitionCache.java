@@ -0,0 +1,172 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of fully assembled public survey definitions (survey plus questions
+ * with their answer options), keyed by survey link.
+ *
+ * Every load gets a new version number, and the public JSON payload is serialized
+ * once per version together with a strong ETag over its bytes. Writers call
+ * {@link #invalidate(String)} or {@link #invalidateSurvey(Long)} after their change
+ * has been committed.
+ */
+@Service
+public class SurveyDefinitionCache {
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.survey-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${app.survey-cache.ttl:10m}")
+    private Duration ttl;
+
+    private Cache<String, SurveyDefinition> cache;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    public record SurveyDefinition(Survey survey, List<Question> questions, long version,
+                                   byte[] publicPayload, String etag) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "surveyDefinitions");
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @return the definition for the link, or null if no survey has that link
+     */
+    public SurveyDefinition get(String surveyLink) {
+        if (surveyLink == null) {
+            return null;
+        }
+        return cache.get(surveyLink, this::load);
+    }
+
+    public void invalidate(String surveyLink) {
+        if (surveyLink != null) {
+            cache.invalidate(surveyLink);
+        }
+    }
+
+    public void invalidateSurvey(Long surveyId) {
+        if (surveyId != null) {
+            surveyRepository.findById(surveyId).ifPresent(survey -> invalidate(survey.getSurveyLink()));
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    private SurveyDefinition load(String surveyLink) {
+        return readOnlyTransaction.execute(status -> {
+            Survey survey = surveyRepository.findBySurveyLink(surveyLink);
+            if (survey == null) {
+                return null;
+            }
+
+            List<Question> questions = questionRepository.findBySurvey(survey);
+
+            byte[] payload = serializePublicPayload(survey, questions);
+            return new SurveyDefinition(survey, List.copyOf(questions), versions.incrementAndGet(),
+                    payload, etagOf(payload));
+        });
+    }
+
+    /**
+     * Only the fields a respondent needs; in particular the creator and the live response count stay out.
+     */
+    private byte[] serializePublicPayload(Survey survey, List<Question> questions) {
+        Map<String, Object> surveyData = new LinkedHashMap<>();
+        surveyData.put("surveyId", survey.getSurveyId());
+        surveyData.put("title", survey.getTitle());
+        surveyData.put("description", survey.getDescription());
+        surveyData.put("createdAt", survey.getCreatedAt());
+        surveyData.put("expiresAt", survey.getExpiresAt());
+        surveyData.put("surveyLink", survey.getSurveyLink());
+        surveyData.put("status", survey.getStatus());
+        surveyData.put("updatedAt", survey.getUpdatedAt());
+
+        List<Map<String, Object>> questionData = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("questionId", question.getQuestionId());
+            item.put("questionText", question.getQuestionText());
+            item.put("questionType", question.getQuestionType());
+            item.put("answerOptions", question.getAnswerOptions());
+            item.put("required", question.getRequired());
+            questionData.add(item);
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("survey", surveyData);
+        payload.put("questions", questionData);
+
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize survey " + survey.getSurveyId(), e);
+        }
+    }
+
+    private String etagOf(byte[] payload) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.config.WorkerThreads;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live response counts and answer tallies pushed to dashboards as Server-Sent Events.
+ *
+ * Every survey with at least one subscriber has a channel. Once per tick the channel
+ * reads the survey's count and tallies (stored plus pending, as the REST reads do),
+ * compares them with what it sent last and fans the changed values out to all of its
+ * subscribers, so a survey costs one aggregation per tick however many dashboards
+ * watch it. Subscribers get a {@code snapshot} event when they connect and
+ * {@code update} events carrying only the values that changed since.
+ *
+ * Sending happens on a small executor, never on the tick thread. Each subscriber has a
+ * bounded queue; a subscriber that falls {@code queue-capacity} events behind is
+ * disconnected and resumes from a fresh snapshot when its EventSource reconnects.
+ */
+@Service
+public class SurveyLiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SurveyLiveService.class);
+
+    private static final String SELECT_SURVEY_SQL =
+            "SELECT response_count, status FROM surveys WHERE survey_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResponseCountService responseCountService;
+
+    @Autowired
+    private AnswerTallyService answerTallyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.live.tick-ms:250}")
+    private long tickMillis;
+
+    @Value("${app.live.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${app.live.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${app.live.heartbeat-interval:15s}")
+    private Duration heartbeatInterval;
+
+    @Value("${app.live.emitter-timeout:30m}")
+    private Duration emitterTimeout;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService ticker;
+
+    private ExecutorService sender;
+
+    private record Snapshot(long responseCount, Map<Long, Map<String, Long>> tallies) {
+    }
+
+    // data is null for a heartbeat comment
+    private record Event(String name, String data) {
+    }
+
+    private static final class Channel {
+        private final Long surveyId;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        // Guarded by the channel's monitor
+        private Snapshot last;
+        private long lastSentNanos = System.nanoTime();
+        private boolean closed;
+
+        private Channel(Long surveyId) {
+            this.surveyId = surveyId;
+        }
+    }
+
+    private final class Subscriber {
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean completed;
+
+        private Subscriber(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.debug("Dropping slow live subscriber of survey {}", channel.surveyId);
+                queue.clear();
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        // Marks the subscriber for completion; the emitter itself is only touched by the sender
+        void close() {
+            closed = true;
+            channel.subscribers.remove(this);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while (!completed && (event = queue.poll()) != null) {
+                    emitter.send(event.data() == null
+                            ? SseEmitter.event().comment("")
+                            : SseEmitter.event().name(event.name()).data(event.data()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container reports it through onError/onCompletion as well
+                closed = true;
+                channel.subscribers.remove(this);
+            } finally {
+                if (closed && !completed) {
+                    completed = true;
+                    queue.clear();
+                    emitter.complete();
+                }
+                draining.set(false);
+            }
+            // An event or close that arrived after the last poll found draining still set
+            if (!completed && (closed || !queue.isEmpty())) {
+                schedule();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        sender = Executors.newFixedThreadPool(senderThreads, workerThreads.factory("survey-live-send-"));
+        ticker = Executors.newSingleThreadScheduledExecutor(workerThreads.factory("survey-live-tick-"));
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(Subscriber::close));
+        sender.shutdown();
+    }
+
+    /**
+     * Opens a live stream. The first event is a snapshot of the current count and
+     * tallies, sent right away if the survey is already watched and on the next tick
+     * otherwise.
+     *
+     * Only JDBC runs on the calling thread: a JPA read there would pin the request's
+     * open-in-view connection for as long as the stream stays open.
+     *
+     * @return null if the survey does not exist or is being purged
+     */
+    public SseEmitter subscribe(Long surveyId) {
+        if (!exists(surveyId)) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        while (true) {
+            Channel channel = channels.computeIfAbsent(surveyId, Channel::new);
+            // Holding the monitor keeps a tick from sending an update between the snapshot and the registration
+            synchronized (channel) {
+                if (channel.closed) {
+                    continue;
+                }
+                Subscriber subscriber = new Subscriber(channel, emitter);
+                emitter.onCompletion(subscriber::close);
+                emitter.onTimeout(subscriber::close);
+                emitter.onError(e -> subscriber.close());
+                channel.subscribers.add(subscriber);
+                if (channel.last != null) {
+                    subscriber.offer(new Event("snapshot", toJson(snapshotBody(surveyId, channel.last))));
+                }
+                return emitter;
+            }
+        }
+    }
+
+    public int getSubscriberCount(Long surveyId) {
+        Channel channel = channels.get(surveyId);
+        return channel == null ? 0 : channel.subscribers.size();
+    }
+
+    private void tick() {
+        for (Channel channel : channels.values()) {
+            try {
+                tick(channel);
+            } catch (RuntimeException e) {
+                logger.error("Live update of survey {} failed", channel.surveyId, e);
+            }
+        }
+    }
+
+    private void tick(Channel channel) {
+        synchronized (channel) {
+            if (channel.subscribers.isEmpty()) {
+                channel.closed = true;
+                channels.remove(channel.surveyId, channel);
+                return;
+            }
+
+            Snapshot current = aggregate(channel.surveyId);
+            if (current == null) {
+                Event deleted = new Event("deleted", toJson(Map.of("surveyId", channel.surveyId)));
+                for (Subscriber subscriber : channel.subscribers) {
+                    subscriber.offer(deleted);
+                    subscriber.close();
+                }
+                channel.closed = true;
+                channels.remove(channel.surveyId, channel);
+                return;
+            }
+
+            Snapshot last = channel.last;
+            channel.last = current;
+            long now = System.nanoTime();
+            Map<String, Object> update = last == null ? null : update(channel.surveyId, last, current);
+            Event event;
+            if (last == null) {
+                // First tick of a new channel: nobody has been sent anything yet
+                event = new Event("snapshot", toJson(snapshotBody(channel.surveyId, current)));
+            } else if (update != null) {
+                event = new Event("update", toJson(update));
+            } else if (now - channel.lastSentNanos >= heartbeatInterval.toNanos()) {
+                event = new Event(null, null);
+            } else {
+                return;
+            }
+            channel.lastSentNanos = now;
+            // Serialized once above and shared by every subscriber
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * @return the survey's count and tallies, or null if it no longer exists or is being purged
+     */
+    private Snapshot aggregate(Long surveyId) {
+        Long persisted = persistedCount(surveyId);
+        if (persisted == null) {
+            return null;
+        }
+        long responseCount = persisted + responseCountService.getPendingCount(surveyId);
+        return new Snapshot(responseCount, answerTallyService.getTallies(surveyId));
+    }
+
+    private boolean exists(Long surveyId) {
+        return persistedCount(surveyId) != null;
+    }
+
+    private Long persistedCount(Long surveyId) {
+        List<Long> rows = jdbcTemplate.query(SELECT_SURVEY_SQL, (rs, rowNum) ->
+                SurveyPurgeService.SURVEY_STATUS_DELETED.equals(rs.getString("status"))
+                        ? null : rs.getLong("response_count"), surveyId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static Map<String, Object> snapshotBody(Long surveyId, Snapshot snapshot) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("surveyId", surveyId);
+        body.put("responseCount", snapshot.responseCount());
+        body.put("tallies", snapshot.tallies());
+        return body;
+    }
+
+    /**
+     * @return the count if it changed and every tally that changed, with its new value
+     *         (0 for one that disappeared), or null if nothing changed
+     */
+    private static Map<String, Object> update(Long surveyId, Snapshot last, Snapshot current) {
+        Map<Long, Map<String, Long>> changed = new TreeMap<>();
+        current.tallies().forEach((questionId, options) -> {
+            Map<String, Long> before = last.tallies().getOrDefault(questionId, Map.of());
+            options.forEach((option, count) -> {
+                if (!count.equals(before.get(option))) {
+                    changed.computeIfAbsent(questionId, id -> new TreeMap<>()).put(option, count);
+                }
+            });
+        });
+        last.tallies().forEach((questionId, options) -> {
+            Map<String, Long> after = current.tallies().getOrDefault(questionId, Map.of());
+            options.keySet().forEach(option -> {
+                if (!after.containsKey(option)) {
+                    changed.computeIfAbsent(questionId, id -> new TreeMap<>()).put(option, 0L);
+                }
+            });
+        });
+
+        if (changed.isEmpty() && last.responseCount() == current.responseCount()) {
+            return null;
+        }
+        Map<String, Object> update = new LinkedHashMap<>();
+        update.put("surveyId", surveyId);
+        if (last.responseCount() != current.responseCount()) {
+            update.put("responseCount", current.responseCount());
+        }
+        if (!changed.isEmpty()) {
+            update.put("tallies", changed);
+        }
+        return update;
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize live update", e);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.surveyx.services;
+
+import com.example.surveyx.config.WorkerThreads;
+import com.example.surveyx.models.Survey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes surveys together with their responses, submissions, questions, tallies, sketches and analytics.
+ *
+ * A purge first marks the survey {@code deleted}, which hides it from every read and
+ * stops new submissions. A single background worker then removes the dependent rows
+ * with set-based deletes of at most {@code batch-size} rows, each in its own short
+ * transaction, so no statement holds locks on a large table for long. Surveys left in
+ * the deleted state, e.g. by a restart or a failed run, are picked up again by
+ * {@link #resumePending}.
+ */
+@Service
+public class SurveyPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SurveyPurgeService.class);
+
+    public static final String SURVEY_STATUS_DELETED = "deleted";
+
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_SUCCEEDED = "succeeded";
+    public static final String STATUS_FAILED = "failed";
+
+    private static final String MARK_DELETED_SQL =
+            "UPDATE surveys SET status = ?, updated_at = ? WHERE survey_id = ?";
+
+    private static final String FIND_DELETED_SQL =
+            "SELECT survey_id FROM surveys WHERE status = ? ORDER BY survey_id";
+
+    private static final String COUNT_RESPONSES_SQL =
+            "SELECT COUNT(*) FROM responses WHERE survey_id = ?";
+
+    private static final String COUNT_SUBMISSIONS_SQL =
+            "SELECT COUNT(*) FROM submissions WHERE survey_id = ?";
+
+    // PostgreSQL has no DELETE ... LIMIT, so each batch selects its keys in a subquery
+    private static final String DELETE_RESPONSES_SQL =
+            "DELETE FROM responses WHERE response_id IN " +
+            "(SELECT response_id FROM responses WHERE survey_id = ? LIMIT ?)";
+
+    private static final String DELETE_SUBMISSIONS_SQL =
+            "DELETE FROM submissions WHERE submission_id IN " +
+            "(SELECT submission_id FROM submissions WHERE survey_id = ? LIMIT ?)";
+
+    private static final String DELETE_MIGRATED_IDS_SQL =
+            "DELETE FROM migrated_response_ids WHERE response_id IN " +
+            "(SELECT response_id FROM migrated_response_ids WHERE survey_id = ? LIMIT ?)";
+
+    private static final String DELETE_QUESTIONS_SQL =
+            "DELETE FROM questions WHERE question_id IN " +
+            "(SELECT question_id FROM questions WHERE survey_id = ? LIMIT ?)";
+
+    private static final String DELETE_TALLIES_SQL =
+            "DELETE FROM question_option_tallies WHERE survey_id = ?";
+
+    private static final String DELETE_SKETCHES_SQL =
+            "DELETE FROM question_sketches WHERE survey_id = ?";
+
+    private static final String DELETE_SUBMISSION_KEYS_SQL =
+            "DELETE FROM submission_keys WHERE survey_id = ?";
+
+    private static final String DELETE_ANALYTICS_SQL =
+            "DELETE FROM survey_analytics WHERE survey_id = ?";
+
+    private static final String DELETE_SURVEY_SQL =
+            "DELETE FROM surveys WHERE survey_id = ? AND status = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SurveyDefinitionCache surveyDefinitionCache;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Value("${app.purge.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.purge.retention:1h}")
+    private Duration retention;
+
+    private ExecutorService executor;
+
+    private Cache<String, PurgeJob> jobs;
+
+    private final Map<Long, PurgeJob> inFlightBySurvey = new ConcurrentHashMap<>();
+
+    public static class PurgeJob {
+        private final String jobId;
+        private final Long surveyId;
+        private final LocalDateTime submittedAt;
+        private volatile String status = STATUS_QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile long responsesTotal;
+        private volatile long responsesDeleted;
+        private volatile long questionsDeleted;
+        private volatile String error;
+
+        private PurgeJob(Long surveyId) {
+            this.jobId = UUID.randomUUID().toString();
+            this.surveyId = surveyId;
+            this.submittedAt = LocalDateTime.now();
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public Long getSurveyId() {
+            return surveyId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public LocalDateTime getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public long getResponsesTotal() {
+            return responsesTotal;
+        }
+
+        public long getResponsesDeleted() {
+            return responsesDeleted;
+        }
+
+        public long getQuestionsDeleted() {
+            return questionsDeleted;
+        }
+
+        /**
+         * @return share of the survey's responses removed so far, from 0 to 1
+         */
+        public double getProgress() {
+            if (STATUS_SUCCEEDED.equals(status)) {
+                return 1.0;
+            }
+            return responsesTotal == 0 ? 0.0 : Math.min(1.0, (double) responsesDeleted / responsesTotal);
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        // One purge at a time keeps the delete load on the database predictable
+        executor = Executors.newSingleThreadExecutor(workerThreads.factory("survey-purge-"));
+
+        jobs = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Marks the survey deleted and queues the removal of its data.
+     *
+     * @return the new job, or the job already queued or running for this survey
+     */
+    public PurgeJob purge(Survey survey) {
+        jdbcTemplate.update(MARK_DELETED_SQL, SURVEY_STATUS_DELETED, LocalDateTime.now(), survey.getSurveyId());
+        surveyDefinitionCache.invalidate(survey.getSurveyLink());
+        return submit(survey.getSurveyId());
+    }
+
+    /**
+     * @return the job, or null if it is unknown or has expired
+     */
+    public PurgeJob getJob(String jobId) {
+        return jobId == null ? null : jobs.getIfPresent(jobId);
+    }
+
+    /**
+     * Requeues surveys that are marked deleted but whose data is still there.
+     */
+    @Scheduled(fixedDelayString = "${app.purge.resume-interval-ms:60000}")
+    public void resumePending() {
+        for (Long surveyId : jdbcTemplate.queryForList(FIND_DELETED_SQL, Long.class, SURVEY_STATUS_DELETED)) {
+            submit(surveyId);
+        }
+    }
+
+    private PurgeJob submit(Long surveyId) {
+        return inFlightBySurvey.computeIfAbsent(surveyId, id -> {
+            PurgeJob job = new PurgeJob(id);
+            executor.execute(() -> run(job));
+            jobs.put(job.jobId, job);
+            return job;
+        });
+    }
+
+    private void run(PurgeJob job) {
+        job.startedAt = LocalDateTime.now();
+        job.status = STATUS_RUNNING;
+        try {
+            purgeData(job);
+            job.status = STATUS_SUCCEEDED;
+            logger.info("Purged survey {}: {} responses, {} questions", job.surveyId,
+                    job.responsesDeleted, job.questionsDeleted);
+        } catch (RuntimeException e) {
+            logger.error("Purge job {} for survey {} failed", job.jobId, job.surveyId, e);
+            job.error = e.getMessage();
+            job.status = STATUS_FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            inFlightBySurvey.remove(job.surveyId, job);
+            // Refresh the retention window from completion
+            jobs.put(job.jobId, job);
+        }
+    }
+
+    private void purgeData(PurgeJob job) {
+        Long surveyId = job.surveyId;
+        // Response rows of both layouts: one per answer, one per submission
+        job.responsesTotal = jdbcTemplate.queryForObject(COUNT_RESPONSES_SQL, Long.class, surveyId)
+                + jdbcTemplate.queryForObject(COUNT_SUBMISSIONS_SQL, Long.class, surveyId);
+
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_RESPONSES_SQL, surveyId, batchSize);
+            job.responsesDeleted += deleted;
+        } while (deleted > 0);
+
+        do {
+            deleted = jdbcTemplate.update(DELETE_SUBMISSIONS_SQL, surveyId, batchSize);
+            job.responsesDeleted += deleted;
+        } while (deleted > 0);
+
+        do {
+            deleted = jdbcTemplate.update(DELETE_MIGRATED_IDS_SQL, surveyId, batchSize);
+        } while (deleted > 0);
+
+        do {
+            deleted = jdbcTemplate.update(DELETE_QUESTIONS_SQL, surveyId, batchSize);
+            job.questionsDeleted += deleted;
+        } while (deleted > 0);
+
+        jdbcTemplate.update(DELETE_TALLIES_SQL, surveyId);
+        jdbcTemplate.update(DELETE_SKETCHES_SQL, surveyId);
+        jdbcTemplate.update(DELETE_SUBMISSION_KEYS_SQL, surveyId);
+        jdbcTemplate.update(DELETE_ANALYTICS_SQL, surveyId);
+        jdbcTemplate.update(DELETE_SURVEY_SQL, surveyId, SURVEY_STATUS_DELETED);
+    }
+}
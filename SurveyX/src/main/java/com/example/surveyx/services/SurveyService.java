@@ -1,10 +1,13 @@
 package com.example.surveyx.services;
 
+import com.example.surveyx.dto.KeysetPage;
 import com.example.surveyx.models.Survey;
 import com.example.surveyx.models.User;
 import com.example.surveyx.repositories.SurveyRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,26 +16,60 @@ import java.util.UUID;
 @Service
 public class SurveyService {
 
+    // Not written through the entity, so a full survey PUT cannot reset it
+    private static final String UPDATE_SUBMISSION_RATE_LIMIT_SQL =
+            "UPDATE surveys SET submission_rate_limit = ? WHERE survey_id = ?";
+
     @Autowired
     private SurveyRepository surveyRepository;
 
+    @Autowired
+    private ResponseCountService responseCountService;
+
+    @Autowired
+    private SurveyDefinitionCache surveyDefinitionCache;
+
+    @Autowired
+    private SurveyPurgeService surveyPurgeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Value("${app.base-url:http://localhost:5173}")
     private String baseUrl;
 
     public List<Survey> getAllSurveys() {
-        return surveyRepository.findAll();
+        List<Survey> surveys = surveyRepository.findAll();
+        surveys.removeIf(this::isDeleted);
+        surveys.forEach(responseCountService::applyPending);
+        return surveys;
+    }
+
+    public KeysetPage<Survey> getSurveysPage(String after, Integer limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<Survey> surveys = surveyRepository.findBySurveyIdGreaterThanOrderBySurveyIdAsc(
+                KeysetPage.decodeCursor(after), Limit.of(pageSize + 1));
+        surveys.forEach(responseCountService::applyPending);
+        // Filtered after paging so a survey being purged cannot shift the cursor
+        KeysetPage<Survey> page = KeysetPage.of(surveys, pageSize, Survey::getSurveyId);
+        return new KeysetPage<>(page.items().stream().filter(survey -> !isDeleted(survey)).toList(), page.nextCursor());
     }
 
     public Survey getSurveyById(Long surveyId) {
-        return surveyRepository.findById(surveyId).orElse(null);
+        return responseCountService.applyPending(
+                surveyRepository.findById(surveyId).filter(survey -> !isDeleted(survey)).orElse(null));
     }
 
     public Survey getSurveyByLink(String surveyLink) {
-        return surveyRepository.findBySurveyLink(surveyLink);
+        Survey survey = surveyRepository.findBySurveyLink(surveyLink);
+        return responseCountService.applyPending(isDeleted(survey) ? null : survey);
     }
 
     public List<Survey> getSurveysByCreator(User creator) {
-        return surveyRepository.findByCreator(creator);
+        List<Survey> surveys = surveyRepository.findByCreator(creator);
+        surveys.removeIf(this::isDeleted);
+        surveys.forEach(responseCountService::applyPending);
+        return surveys;
     }
 
     public Survey createSurvey(Survey survey) {
@@ -75,11 +112,38 @@ public class SurveyService {
             savedSurvey.setClickableLink(generateClickableLink(savedSurvey.getSurveyLink()));
         }
 
+        surveyDefinitionCache.invalidate(savedSurvey.getSurveyLink());
+
         return savedSurvey;
     }
 
-    public void deleteSurvey(Long surveyId) {
-        surveyRepository.deleteById(surveyId);
+    /**
+     * Hides the survey right away; its responses and questions are removed by a background purge.
+     *
+     * @return the purge job, or null if there is no such survey
+     */
+    public SurveyPurgeService.PurgeJob deleteSurvey(Long surveyId) {
+        Survey survey = getSurveyById(surveyId);
+        return survey == null ? null : surveyPurgeService.purge(survey);
+    }
+
+    /**
+     * @param perMinute public submissions per minute, or null for the configured default
+     * @return the survey, or null if there is no such survey
+     */
+    public Survey setSubmissionRateLimit(Long surveyId, Integer perMinute) {
+        Survey survey = getSurveyById(surveyId);
+        if (survey == null) {
+            return null;
+        }
+        jdbcTemplate.update(UPDATE_SUBMISSION_RATE_LIMIT_SQL, perMinute, surveyId);
+        survey.setSubmissionRateLimit(perMinute);
+        surveyDefinitionCache.invalidate(survey.getSurveyLink());
+        return survey;
+    }
+
+    private boolean isDeleted(Survey survey) {
+        return survey != null && SurveyPurgeService.SURVEY_STATUS_DELETED.equals(survey.getStatus());
     }
 
     private String generateClickableLink(String uniqueId) {
@@ -1,8 +1,11 @@
 package com.example.surveyx.services;
 
+import com.example.surveyx.dto.KeysetPage;
 import com.example.surveyx.models.User;
 import com.example.surveyx.repositories.UserRepository;
+import com.example.surveyx.security.VerifiedTokenCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -18,6 +21,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
     public User getUserById(Long userId) {
         return userRepository.findById(userId).orElse(null);
     }
@@ -26,6 +32,13 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    public KeysetPage<User> getUsersPage(String after, Integer limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<User> users = userRepository.findByUserIdGreaterThanOrderByUserIdAsc(
+                KeysetPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return KeysetPage.of(users, pageSize, User::getUserId);
+    }
+
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
@@ -35,12 +48,20 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    // Cached tokens carry the old UserDetails, so both change paths evict them after the write
     public User updateUser(User user) {
-        return userRepository.save(user);
+        String previousUsername = user.getUserId() == null ? null
+                : userRepository.findById(user.getUserId()).map(User::getUsername).orElse(null);
+        User updated = userRepository.save(user);
+        tokenCache.evictUser(previousUsername);
+        tokenCache.evictUser(updated.getUsername());
+        return updated;
     }
 
     public void deleteUser(Long userId) {
+        String username = userRepository.findById(userId).map(User::getUsername).orElse(null);
         userRepository.deleteById(userId);
+        tokenCache.evictUser(username);
     }
 }
 
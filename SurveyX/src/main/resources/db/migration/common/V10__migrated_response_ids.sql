@@ -0,0 +1,9 @@
+-- Response ids of answer rows moved into submissions (SubmissionMigrationService), mapped to
+-- the synthetic id of the answer in its submission, so the old ids keep resolving.
+CREATE TABLE migrated_response_ids (
+    response_id BIGINT PRIMARY KEY,
+    survey_id   BIGINT NOT NULL,
+    answer_id   BIGINT NOT NULL
+);
+
+CREATE INDEX idx_migrated_response_ids_survey ON migrated_response_ids (survey_id);
@@ -0,0 +1,20 @@
+-- Indexes for the derived and JPQL queries on the request path.
+-- users.email and surveys.survey_link are already covered by their unique constraints.
+
+-- findBySurvey, findViewsBySurveyId and the watermark, delta and paging queries (survey_id, response_id > ?)
+CREATE INDEX IF NOT EXISTS idx_responses_survey_response ON responses (survey_id, response_id);
+
+-- findBySurveyAndRespondentId and the respondent-ordered export cursor (streamViewsBySurveyId)
+CREATE INDEX IF NOT EXISTS idx_responses_survey_respondent ON responses (survey_id, respondent_id, response_id);
+
+-- Per-question lookups within a survey
+CREATE INDEX IF NOT EXISTS idx_responses_survey_question ON responses (survey_id, question_id);
+
+-- SurveyRepository.findByCreator
+CREATE INDEX IF NOT EXISTS idx_surveys_creator ON surveys (creator_id);
+
+-- QuestionRepository.findBySurvey and findSummariesBySurveyId
+CREATE INDEX IF NOT EXISTS idx_questions_survey ON questions (survey_id);
+
+-- Loading a question's answer options
+CREATE INDEX IF NOT EXISTS idx_question_answer_options_question ON question_answer_options (question_question_id);
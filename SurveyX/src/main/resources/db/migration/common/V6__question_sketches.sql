@@ -0,0 +1,11 @@
+-- Serialized per-question sketches (HLL distinct answers, t-digest of ratings, frequent
+-- free-text terms), merged in place by every node's flush.
+CREATE TABLE question_sketches (
+    survey_id        BIGINT NOT NULL,
+    question_id      BIGINT NOT NULL,
+    answer_count     BIGINT NOT NULL,
+    distinct_answers BYTEA  NOT NULL,
+    numeric_answers  BYTEA,
+    top_terms        BYTEA,
+    PRIMARY KEY (survey_id, question_id)
+);
@@ -0,0 +1,2 @@
+-- Public submissions per minute allowed for the survey; NULL uses app.rate-limit.survey-per-minute.
+ALTER TABLE surveys ADD COLUMN submission_rate_limit INTEGER;
@@ -0,0 +1,11 @@
+-- Idempotency-Key of each public submission that sent one; the primary key is what stops a
+-- retry that missed every node's in-memory window from being stored twice.
+CREATE TABLE submission_keys (
+    survey_id       BIGINT       NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    respondent_id   UUID         NOT NULL,
+    created_at      TIMESTAMP    NOT NULL,
+    PRIMARY KEY (survey_id, idempotency_key)
+);
+
+CREATE INDEX idx_submission_keys_created_at ON submission_keys (created_at);
@@ -0,0 +1,16 @@
+-- Live per-option answer counts (AnswerTallyService) and the incremental analytics watermark
+-- (SurveyAnalyticsService), which postdate the ddl-auto=update schema that V1 describes.
+-- IF NOT EXISTS because databases created from an earlier V1 already have them.
+CREATE TABLE IF NOT EXISTS question_option_tallies (
+    survey_id    BIGINT       NOT NULL,
+    question_id  BIGINT       NOT NULL,
+    option_value VARCHAR(255) NOT NULL,
+    answer_count BIGINT       NOT NULL,
+    PRIMARY KEY (question_id, survey_id, option_value)
+);
+
+ALTER TABLE survey_analytics ADD COLUMN IF NOT EXISTS last_response_id BIGINT;
+ALTER TABLE survey_analytics ADD COLUMN IF NOT EXISTS last_response_at TIMESTAMP(6);
+ALTER TABLE survey_analytics ADD COLUMN IF NOT EXISTS analyzed_response_count BIGINT;
+ALTER TABLE survey_analytics ADD COLUMN IF NOT EXISTS input_hash VARCHAR(64);
+ALTER TABLE survey_analytics ADD COLUMN IF NOT EXISTS incremental_runs INTEGER;
@@ -0,0 +1,55 @@
+-- Schema as previously created by Hibernate's ddl-auto=update. Existing databases are
+-- baselined at this version and only pick up later migrations.
+
+CREATE TABLE users (
+    user_id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username      VARCHAR(255) NOT NULL UNIQUE,
+    email         VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6)
+);
+
+CREATE TABLE surveys (
+    survey_id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    creator_id     BIGINT REFERENCES users (user_id),
+    title          VARCHAR(255) NOT NULL,
+    description    VARCHAR(255),
+    created_at     TIMESTAMP(6),
+    expires_at     TIMESTAMP(6),
+    survey_link    VARCHAR(255) UNIQUE,
+    status         VARCHAR(255),
+    response_count INTEGER,
+    updated_at     TIMESTAMP(6)
+);
+
+CREATE TABLE questions (
+    question_id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    survey_id     BIGINT REFERENCES surveys (survey_id),
+    question_text VARCHAR(255) NOT NULL,
+    question_type VARCHAR(255) NOT NULL,
+    required      BOOLEAN,
+    created_at    TIMESTAMP(6)
+);
+
+CREATE TABLE question_answer_options (
+    question_question_id BIGINT NOT NULL REFERENCES questions (question_id),
+    answer_options       VARCHAR(255)
+);
+
+CREATE TABLE responses (
+    response_id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    survey_id     BIGINT REFERENCES surveys (survey_id),
+    respondent_id UUID,
+    question_id   BIGINT REFERENCES questions (question_id),
+    answer_text   VARCHAR(255),
+    submitted_at  TIMESTAMP(6)
+);
+
+CREATE TABLE survey_analytics (
+    analytics_id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    survey_id        BIGINT UNIQUE REFERENCES surveys (survey_id),
+    analysis_summary TEXT,
+    insights         json,
+    created_at       TIMESTAMP(6)
+);
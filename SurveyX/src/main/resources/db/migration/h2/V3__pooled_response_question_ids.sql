@@ -0,0 +1,12 @@
+-- Same as the PostgreSQL migration; H2 has no setval, so the sequences restart past the existing ids.
+
+CREATE SEQUENCE IF NOT EXISTS responses_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS questions_seq INCREMENT BY 50;
+
+ALTER SEQUENCE responses_seq RESTART WITH (SELECT COALESCE(MAX(response_id), 0) + 50 FROM responses);
+ALTER SEQUENCE questions_seq RESTART WITH (SELECT COALESCE(MAX(question_id), 0) + 50 FROM questions);
+
+ALTER TABLE responses ALTER COLUMN response_id DROP IDENTITY;
+ALTER TABLE responses ALTER COLUMN response_id SET DEFAULT NEXT VALUE FOR responses_seq;
+ALTER TABLE questions ALTER COLUMN question_id DROP IDENTITY;
+ALTER TABLE questions ALTER COLUMN question_id SET DEFAULT NEXT VALUE FOR questions_seq;
@@ -0,0 +1,12 @@
+-- Same as the PostgreSQL migration, with H2's JSON aggregate and row ids.
+
+ALTER TABLE questions ADD COLUMN answer_options JSON;
+
+UPDATE questions q
+SET answer_options = COALESCE(
+        (SELECT JSON_ARRAYAGG(o.answer_options ORDER BY o._ROWID_)
+         FROM question_answer_options o
+         WHERE o.question_question_id = q.question_id),
+        JSON '[]');
+
+DROP TABLE question_answer_options;
@@ -0,0 +1,16 @@
+-- Same tables as the PostgreSQL migration. H2 cannot expand a JSON object into rows, so the
+-- response_answers compatibility view exists on PostgreSQL only.
+
+CREATE SEQUENCE IF NOT EXISTS submissions_seq INCREMENT BY 50;
+
+CREATE TABLE submissions (
+    submission_id BIGINT       PRIMARY KEY,
+    survey_id     BIGINT       NOT NULL REFERENCES surveys (survey_id),
+    respondent_id UUID,
+    submitted_at  TIMESTAMP(6),
+    answers       JSON         NOT NULL,
+    answer_count  INTEGER      NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_submissions_survey_submission ON submissions (survey_id, submission_id);
+CREATE INDEX IF NOT EXISTS idx_submissions_survey_respondent ON submissions (survey_id, respondent_id);
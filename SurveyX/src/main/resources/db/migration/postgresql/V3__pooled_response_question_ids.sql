@@ -0,0 +1,17 @@
+-- Responses and questions take their ids from sequences that Hibernate allocates from
+-- in blocks of 50 (pooled optimizer), which lets it batch inserts.
+
+CREATE SEQUENCE IF NOT EXISTS responses_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS questions_seq INCREMENT BY 50;
+
+-- The pooled optimizer reads each value as the top of a block, so the first value
+-- handed out has to be a full block above the ids already in use
+SELECT setval('responses_seq', COALESCE(MAX(response_id), 0) + 50, false) FROM responses;
+SELECT setval('questions_seq', COALESCE(MAX(question_id), 0) + 50, false) FROM questions;
+
+-- Rows inserted with plain SQL (the submission ingest writer) draw from the same sequences.
+-- Each takes the top id of a block nobody else uses, so they cannot collide with Hibernate's ids.
+ALTER TABLE responses ALTER COLUMN response_id DROP IDENTITY IF EXISTS;
+ALTER TABLE responses ALTER COLUMN response_id SET DEFAULT nextval('responses_seq');
+ALTER TABLE questions ALTER COLUMN question_id DROP IDENTITY IF EXISTS;
+ALTER TABLE questions ALTER COLUMN question_id SET DEFAULT nextval('questions_seq');
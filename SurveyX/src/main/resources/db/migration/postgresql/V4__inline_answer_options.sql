@@ -0,0 +1,14 @@
+-- Answer options move from the question_answer_options element-collection table into an
+-- ordered JSON array on the question row.
+
+ALTER TABLE questions ADD COLUMN answer_options JSONB;
+
+-- The collection had no order column; physical order is the order it was read back in
+UPDATE questions q
+SET answer_options = COALESCE(
+        (SELECT jsonb_agg(o.answer_options ORDER BY o.ctid)
+         FROM question_answer_options o
+         WHERE o.question_question_id = q.question_id),
+        '[]'::jsonb);
+
+DROP TABLE question_answer_options;
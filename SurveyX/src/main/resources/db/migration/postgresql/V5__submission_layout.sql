@@ -0,0 +1,36 @@
+-- Submission layout: one row per respondent with the answers as a JSON object keyed by
+-- question id, as an alternative to one responses row per answer.
+
+CREATE SEQUENCE IF NOT EXISTS submissions_seq INCREMENT BY 50;
+
+CREATE TABLE submissions (
+    submission_id BIGINT       PRIMARY KEY,
+    survey_id     BIGINT       NOT NULL REFERENCES surveys (survey_id),
+    respondent_id UUID,
+    submitted_at  TIMESTAMP(6),
+    answers       JSONB        NOT NULL,
+    answer_count  INTEGER      NOT NULL
+);
+
+-- Reads, paging and the watermark (survey_id, submission_id > ?)
+CREATE INDEX IF NOT EXISTS idx_submissions_survey_submission ON submissions (survey_id, submission_id);
+
+-- Respondent lookups and the migration from the answers layout
+CREATE INDEX IF NOT EXISTS idx_submissions_survey_respondent ON submissions (survey_id, respondent_id);
+
+-- Per-answer rows of both layouts for reports and ad hoc SQL. Answers of a submission get the
+-- synthetic ids ResponseService hands out: 2^52 + submission_id * 4096 + slot, the slot being
+-- the answer's position among the submission's keys in question id order. Deleted answers
+-- stay behind as JSON nulls, so the slots of the others never shift.
+CREATE VIEW response_answers AS
+SELECT r.response_id, r.survey_id, r.respondent_id, r.question_id, r.answer_text, r.submitted_at
+FROM responses r
+UNION ALL
+SELECT 4503599627370496 + s.submission_id * 4096 + a.slot - 1,
+       s.survey_id, s.respondent_id, a.key::bigint, a.value, s.submitted_at
+FROM submissions s
+CROSS JOIN LATERAL (
+    SELECT key, value, row_number() OVER (ORDER BY key::bigint) AS slot
+    FROM jsonb_each_text(s.answers)
+) a
+WHERE a.value IS NOT NULL;
@@ -0,0 +1,234 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Response;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.ResponseRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Analytics generation as background jobs, against a local stub of the chat completions API.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:analyticsjobs;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test"
+})
+@AutoConfigureMockMvc
+class AnalyticsJobTests {
+
+    private static final AtomicInteger llmCalls = new AtomicInteger();
+    private static volatile CountDownLatch llmGate = new CountDownLatch(0);
+    private static volatile String llmContent = "{\\\"summary\\\":\\\"Stub summary\\\",\\\"insights\\\":{\\\"themes\\\":[\\\"great\\\"]}}";
+    private static final HttpServer llmStub = startLlmStub();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @DynamicPropertySource
+    static void llmProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.api.url",
+                () -> "http://localhost:" + llmStub.getAddress().getPort() + "/v1/chat/completions");
+    }
+
+    @AfterAll
+    static void stopLlmStub() {
+        llmStub.stop(0);
+    }
+
+    @Test
+    void concurrentRequestsForOneSurveyShareOneJob() throws Exception {
+        Survey survey = seedSurvey();
+        llmGate = new CountDownLatch(1);
+        int callsBefore = llmCalls.get();
+
+        MvcResult first = mockMvc.perform(post("/api/analytics/survey/" + survey.getSurveyId()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn();
+        MvcResult second = mockMvc.perform(post("/api/analytics/survey/" + survey.getSurveyId()))
+                .andExpect(status().isAccepted())
+                .andReturn();
+
+        String jobId = json(first).get("jobId").asText();
+        assertEquals(jobId, json(second).get("jobId").asText());
+
+        llmGate.countDown();
+        JsonNode job = awaitJob(jobId);
+
+        assertEquals("succeeded", job.get("status").asText());
+        assertEquals("Stub summary", job.get("analytics").get("analysisSummary").asText());
+        assertEquals(1, llmCalls.get() - callsBefore);
+
+        // Once finished, a new request starts a new job, which reuses the result while nothing changed
+        MvcResult third = mockMvc.perform(post("/api/analytics/survey/" + survey.getSurveyId()))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        awaitJob(json(third).get("jobId").asText());
+        assertEquals(1, llmCalls.get() - callsBefore);
+
+        // A new response is folded in incrementally: one call for the new answers, one to merge
+        addResponse(survey, questionRepository.findBySurvey(survey).get(0), "Could be faster");
+        MvcResult fourth = mockMvc.perform(post("/api/analytics/survey/" + survey.getSurveyId()))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        assertEquals(2, awaitJob(json(fourth).get("jobId").asText()).get("analytics").get("analyzedResponseCount").asInt());
+        assertEquals(3, llmCalls.get() - callsBefore);
+    }
+
+    @Test
+    void failedGenerationFailsTheJobAndKeepsThePreviousAnalysis() throws Exception {
+        Survey survey = seedSurvey();
+        String content = llmContent;
+
+        MvcResult first = mockMvc.perform(post("/api/analytics/survey/" + survey.getSurveyId()))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        assertEquals("succeeded", awaitJob(json(first).get("jobId").asText()).get("status").asText());
+
+        addResponse(survey, questionRepository.findBySurvey(survey).get(0), "Too slow");
+        llmContent = "not json";
+        try {
+            MvcResult second = mockMvc.perform(post("/api/analytics/survey/" + survey.getSurveyId()))
+                    .andExpect(status().isAccepted())
+                    .andReturn();
+            JsonNode job = awaitJob(json(second).get("jobId").asText());
+            assertEquals("failed", job.get("status").asText());
+            assertEquals("Analysis was not valid JSON", job.get("error").asText());
+        } finally {
+            llmContent = content;
+        }
+
+        JsonNode analytics = json(mockMvc.perform(get("/api/analytics/survey/" + survey.getSurveyId()))
+                .andExpect(status().isOk())
+                .andReturn());
+        assertEquals("Stub summary", analytics.get("analysisSummary").asText());
+        assertEquals(1, analytics.get("analyzedResponseCount").asInt());
+    }
+
+    @Test
+    void unknownSurveyAndJobAreNotFound() throws Exception {
+        mockMvc.perform(post("/api/analytics/survey/999999")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/analytics/jobs/" + UUID.randomUUID())).andExpect(status().isNotFound());
+    }
+
+    private JsonNode awaitJob(String jobId) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            JsonNode job = json(mockMvc.perform(get("/api/analytics/jobs/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn());
+            String jobStatus = job.get("status").asText();
+            if (!"queued".equals(jobStatus) && !"running".equals(jobStatus)) {
+                return job;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Job " + jobId + " did not finish, status " + jobStatus);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private Survey seedSurvey() {
+        Survey survey = new Survey();
+        survey.setTitle("Analytics job test");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = surveyRepository.save(survey);
+
+        Question question = new Question();
+        question.setSurvey(survey);
+        question.setQuestionText("How was it?");
+        question.setQuestionType("text");
+        question = questionRepository.save(question);
+
+        addResponse(survey, question, "Great");
+        return survey;
+    }
+
+    private void addResponse(Survey survey, Question question, String answerText) {
+        Response response = new Response();
+        response.setSurvey(survey);
+        response.setQuestion(question);
+        response.setRespondentId(UUID.randomUUID());
+        response.setAnswerText(answerText);
+        response.setSubmittedAt(LocalDateTime.now());
+        responseRepository.save(response);
+    }
+
+    private static HttpServer startLlmStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/v1/chat/completions", exchange -> {
+                llmCalls.incrementAndGet();
+                exchange.getRequestBody().readAllBytes();
+                try {
+                    llmGate.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = ("{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":"
+                        + "\"" + llmContent + "\"}}]}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
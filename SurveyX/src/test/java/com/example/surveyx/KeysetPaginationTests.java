@@ -0,0 +1,145 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Submission;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SubmissionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset pages of a survey's responses that mixes answer rows and submissions: walking
+ * the cursors returns every answer once, in id order.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:keyset;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test"
+})
+@AutoConfigureMockMvc
+class KeysetPaginationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Test
+    void pagesCoverAnswerRowsAndSubmissionsOnce() throws Exception {
+        Survey survey = seedSurvey();
+        List<Question> questions = questionRepository.findBySurvey(survey);
+        Long first = questions.get(0).getQuestionId();
+        Long second = questions.get(1).getQuestionId();
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO responses (survey_id, question_id, respondent_id, answer_text, submitted_at) " +
+                            "VALUES (?, ?, ?, ?, ?)", survey.getSurveyId(), first, UUID.randomUUID(), "Row " + i,
+                    Timestamp.valueOf(LocalDateTime.now()));
+        }
+        addSubmission(survey, Map.of(first, "A", second, "B"));
+        addSubmission(survey, Map.of(first, "C", second, "D"));
+        // A deleted answer keeps its slot as a null and is skipped
+        Map<Long, String> withDeleted = new TreeMap<>();
+        withDeleted.put(first, null);
+        withDeleted.put(second, "E");
+        addSubmission(survey, withDeleted);
+
+        List<Long> all = new ArrayList<>();
+        for (JsonNode response : getJson(get("/api/responses/survey/" + survey.getSurveyId()))) {
+            all.add(response.get("responseId").asLong());
+        }
+        assertEquals(8, all.size());
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/responses/survey/" + survey.getSurveyId())
+                    .param("limit", "3");
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            JsonNode page = getJson(request);
+            page.get("items").forEach(item -> paged.add(item.get("responseId").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(all, paged);
+        assertEquals(paged.stream().sorted().toList(), paged);
+        assertTrue(Submission.isAnswerId(paged.get(3)));
+    }
+
+    @Test
+    void unknownCursorIsABadRequest() throws Exception {
+        Survey survey = seedSurvey();
+        mockMvc.perform(get("/api/responses/survey/" + survey.getSurveyId()).param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/surveys").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode getJson(MockHttpServletRequestBuilder request) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private void addSubmission(Survey survey, Map<Long, String> answers) {
+        Map<Long, String> sorted = new TreeMap<>(answers);
+        int answerCount = (int) sorted.values().stream().filter(Objects::nonNull).count();
+        submissionRepository.save(new Submission(null, survey.getSurveyId(), UUID.randomUUID(), LocalDateTime.now(),
+                sorted, answerCount));
+    }
+
+    private Survey seedSurvey() {
+        Survey survey = new Survey();
+        survey.setTitle("Keyset test");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = surveyRepository.save(survey);
+
+        for (String text : List.of("How was it?", "How was delivery?")) {
+            Question question = new Question();
+            question.setSurvey(survey);
+            question.setQuestionText(text);
+            question.setQuestionType("text");
+            questionRepository.save(question);
+        }
+        return survey;
+    }
+}
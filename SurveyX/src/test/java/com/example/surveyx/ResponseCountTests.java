@@ -0,0 +1,105 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.example.surveyx.services.ResponseCountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Response count deltas: flushed to the survey row in one update, and kept pending when
+ * the flush fails.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:counts;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=100",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test",
+        // Flushes only when the tests call it
+        "app.counters.flush-interval-ms=3600000"
+})
+class ResponseCountTests {
+
+    @Autowired
+    private ResponseCountService responseCountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Test
+    void flushMovesPendingIncrementsToTheSurvey() {
+        Survey survey = seedSurvey();
+        for (int i = 0; i < 3; i++) {
+            responseCountService.increment(survey.getSurveyId());
+        }
+        assertEquals(0, storedCount(survey));
+        assertEquals(3, reportedCount(survey));
+
+        responseCountService.flush();
+
+        assertEquals(0, responseCountService.getPendingCount(survey.getSurveyId()));
+        assertEquals(3, storedCount(survey));
+        assertEquals(3, reportedCount(survey));
+    }
+
+    @Test
+    void failedFlushKeepsTheIncrementsForTheNextOne() throws Exception {
+        Survey survey = seedSurvey();
+        responseCountService.increment(survey.getSurveyId());
+        responseCountService.increment(survey.getSurveyId());
+
+        // The survey row is locked, so the flush's update times out and rolls back
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE surveys SET title = title WHERE survey_id = ?", survey.getSurveyId());
+            Thread flusher = new Thread(responseCountService::flush);
+            flusher.start();
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertEquals(2, responseCountService.getPendingCount(survey.getSurveyId()));
+        assertEquals(0, storedCount(survey));
+
+        responseCountService.increment(survey.getSurveyId());
+        responseCountService.flush();
+
+        assertEquals(0, responseCountService.getPendingCount(survey.getSurveyId()));
+        assertEquals(3, storedCount(survey));
+    }
+
+    private long storedCount(Survey survey) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(response_count, 0) FROM surveys WHERE survey_id = ?",
+                Long.class, survey.getSurveyId());
+    }
+
+    private int reportedCount(Survey survey) {
+        return responseCountService.applyPending(surveyRepository.findById(survey.getSurveyId()).orElseThrow())
+                .getResponseCount();
+    }
+
+    private Survey seedSurvey() {
+        Survey survey = new Survey();
+        survey.setTitle("Count test");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        return surveyRepository.save(survey);
+    }
+}
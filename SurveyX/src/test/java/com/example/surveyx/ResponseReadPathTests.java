@@ -0,0 +1,108 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Response;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.ResponseRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the entity read path (EAGER survey/question graphs) with the projection
+ * read path on the same data by the JDBC statements each call prepares. Allocation per
+ * call is measured by {@code ResponseReadPathBenchmark} under {@code -prof gc}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:readpath;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test"
+})
+class ResponseReadPathTests {
+
+    private static final int QUESTIONS = 20;
+    private static final int RESPONDENTS = 200;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ResponseRepository responseRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void projectionReadPathUsesOneStatement() {
+        Survey survey = seedSurvey();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long entities = countStatements(statistics, () -> responseRepository.findBySurvey(survey));
+        long views = countStatements(statistics, () -> responseRepository.findViewsBySurveyId(survey.getSurveyId()));
+
+        assertEquals(1, views);
+        assertTrue(views < entities);
+    }
+
+    private Survey seedSurvey() {
+        Survey survey = new Survey();
+        survey.setTitle("Read path test");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = surveyRepository.save(survey);
+
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < QUESTIONS; i++) {
+            Question question = new Question();
+            question.setSurvey(survey);
+            question.setQuestionText("Question " + i);
+            question.setQuestionType("multiple_choice");
+            question.setAnswerOptions(List.of("a", "b", "c"));
+            questions.add(question);
+        }
+        questions = questionRepository.saveAll(questions);
+
+        List<Response> responses = new ArrayList<>();
+        for (int r = 0; r < RESPONDENTS; r++) {
+            UUID respondentId = UUID.randomUUID();
+            for (Question question : questions) {
+                Response response = new Response();
+                response.setSurvey(survey);
+                response.setQuestion(question);
+                response.setRespondentId(respondentId);
+                response.setAnswerText("a");
+                response.setSubmittedAt(LocalDateTime.now());
+                responses.add(response);
+            }
+        }
+        responseRepository.saveAll(responses);
+        return survey;
+    }
+
+    private long countStatements(Statistics statistics, Runnable readPath) {
+        statistics.clear();
+        readPath.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
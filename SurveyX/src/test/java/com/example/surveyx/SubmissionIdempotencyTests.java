@@ -0,0 +1,138 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Public submissions retried with an Idempotency-Key, within this node's window and past it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test"
+})
+@AutoConfigureMockMvc
+class SubmissionIdempotencyTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Test
+    void retryWithinTheWindowReplaysTheOriginalSubmission() throws Exception {
+        Survey survey = seedSurvey();
+        String original = submit(survey, "retry-1")
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse().getContentAsString();
+        String retry = submit(survey, "retry-1")
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(respondentId(original), respondentId(retry));
+        awaitRespondents(survey, 1);
+    }
+
+    @Test
+    void retryPastTheWindowReplaysTheStoredSubmission() throws Exception {
+        Survey survey = seedSurvey();
+        // Stored by another node (or before a restart), so this node's window has never seen the key
+        UUID storedRespondent = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO submission_keys (survey_id, idempotency_key, respondent_id, created_at) " +
+                "VALUES (?, ?, ?, ?)", survey.getSurveyId(), "retry-2", storedRespondent, Timestamp.valueOf(LocalDateTime.now()));
+
+        String retry = submit(survey, "retry-2")
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(storedRespondent.toString(), respondentId(retry));
+        // Nothing was queued for the retry; a submission without a key still goes through
+        submit(survey, null).andExpect(header().doesNotExist("Idempotent-Replayed"));
+        awaitRespondents(survey, 1);
+    }
+
+    private ResultActions submit(Survey survey, String idempotencyKey) throws Exception {
+        Long questionId = questionRepository.findBySurvey(survey).get(0).getQuestionId();
+        MockHttpServletRequestBuilder request = post("/survey/api/" + survey.getSurveyLink() + "/submit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"question\":{\"questionId\":" + questionId + "},\"answerText\":\"Fine\"}]");
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        return mockMvc.perform(request).andExpect(status().isAccepted());
+    }
+
+    private String respondentId(String body) throws Exception {
+        return objectMapper.readTree(body).get("respondentId").asText();
+    }
+
+    private void awaitRespondents(Survey survey, long expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            Long respondents = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(DISTINCT respondent_id) FROM responses WHERE survey_id = ?", Long.class, survey.getSurveyId());
+            if (respondents == expected) {
+                // Long enough for the writer to have stored a duplicate as well, had one been queued
+                Thread.sleep(300);
+                assertEquals(expected, jdbcTemplate.queryForObject(
+                        "SELECT COUNT(DISTINCT respondent_id) FROM responses WHERE survey_id = ?", Long.class, survey.getSurveyId()));
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected " + expected + " respondents, found " + respondents);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private Survey seedSurvey() {
+        Survey survey = new Survey();
+        survey.setTitle("Idempotency test");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = surveyRepository.save(survey);
+
+        Question question = new Question();
+        question.setSurvey(survey);
+        question.setQuestionText("How was it?");
+        question.setQuestionType("text");
+        questionRepository.save(question);
+        return survey;
+    }
+}
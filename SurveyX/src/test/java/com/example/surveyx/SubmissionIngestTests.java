@@ -0,0 +1,178 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.example.surveyx.services.SubmissionIngestService;
+import com.example.surveyx.services.SubmissionIngestService.Answer;
+import com.example.surveyx.services.SubmissionIngestService.PendingSubmission;
+import com.example.surveyx.services.SubmissionKeyService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The submission writer: retrying while the database is unavailable, isolating and dropping
+ * submissions it rejects, and draining the queue on shutdown.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ingest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=100",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test",
+        "app.ingest.max-attempts=2",
+        "app.ingest.retry-backoff-ms=50"
+})
+class SubmissionIngestTests {
+
+    @Autowired
+    private SubmissionIngestService submissionIngestService;
+
+    @Autowired
+    private SubmissionKeyService submissionKeyService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Test
+    void batchBlockedByALockIsRetriedUntilWritten() throws Exception {
+        Survey survey = seedSurvey();
+        Question question = questionRepository.findBySurvey(survey).get(0);
+        double dropped = droppedCount();
+
+        // The writer's response count update times out on the locked survey row, well past max-attempts
+        lockSurvey(survey, 1000, () -> assertTrue(submissionIngestService.enqueue(pending(survey, question, null))));
+
+        awaitRespondents(survey, 1);
+        assertEquals(dropped, droppedCount());
+    }
+
+    @Test
+    void rejectedSubmissionIsIsolatedAndDropped() throws Exception {
+        Survey survey = seedSurvey();
+        Question question = questionRepository.findBySurvey(survey).get(0);
+        Question missing = new Question();
+        missing.setQuestionId(Long.MAX_VALUE);
+        double dropped = droppedCount();
+
+        PendingSubmission rejected = pending(survey, missing, "drop-1");
+        assertNull(submissionKeyService.claim(survey.getSurveyId(), "drop-1", rejected.respondentId()));
+
+        // Held back by the lock, the submissions queue up and reach the writer as one batch
+        lockSurvey(survey, 300, () -> {
+            for (int i = 0; i < 9; i++) {
+                assertTrue(submissionIngestService.enqueue(i == 4 ? rejected : pending(survey, question, null)));
+            }
+        });
+
+        awaitRespondents(survey, 8);
+        assertEquals(dropped + 1, droppedCount());
+        // The key no longer replays a submission that was never stored
+        assertNull(submissionKeyService.find(survey.getSurveyId(), "drop-1"));
+    }
+
+    @Test
+    @DirtiesContext
+    void shutdownDrainsTheQueue() throws Exception {
+        Survey survey = seedSurvey();
+        Question question = questionRepository.findBySurvey(survey).get(0);
+
+        // Shutdown starts while the writer is held back, with most of the submissions still queued
+        Thread stopper = new Thread(() -> {
+            try {
+                submissionIngestService.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        lockSurvey(survey, 300, () -> {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(submissionIngestService.enqueue(pending(survey, question, null)));
+            }
+            stopper.start();
+        });
+        stopper.join();
+
+        assertFalse(submissionIngestService.enqueue(pending(survey, question, null)));
+        assertEquals(0, submissionIngestService.getQueueDepth());
+        assertEquals(100, countRespondents(survey));
+    }
+
+    private PendingSubmission pending(Survey survey, Question question, String idempotencyKey) {
+        return new PendingSubmission(survey.getSurveyId(), UUID.randomUUID(), LocalDateTime.now(),
+                List.of(new Answer(question, "Fine")), idempotencyKey);
+    }
+
+    private void lockSurvey(Survey survey, long millis, Runnable whileLocked) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE surveys SET title = title WHERE survey_id = ?", survey.getSurveyId());
+            whileLocked.run();
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private double droppedCount() {
+        return meterRegistry.counter("submissions.dropped").count();
+    }
+
+    private long countRespondents(Survey survey) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT respondent_id) FROM responses WHERE survey_id = ?",
+                Long.class, survey.getSurveyId());
+    }
+
+    private void awaitRespondents(Survey survey, long expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (countRespondents(survey) != expected) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected " + expected + " respondents, found " + countRespondents(survey));
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private Survey seedSurvey() {
+        Survey survey = new Survey();
+        survey.setTitle("Ingest test");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = surveyRepository.save(survey);
+
+        Question question = new Question();
+        question.setSurvey(survey);
+        question.setQuestionText("How was it?");
+        question.setQuestionType("text");
+        questionRepository.save(question);
+        return survey;
+    }
+}
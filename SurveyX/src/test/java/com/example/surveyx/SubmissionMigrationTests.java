@@ -0,0 +1,107 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Response;
+import com.example.surveyx.models.Submission;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.example.surveyx.services.ResponseService;
+import com.example.surveyx.services.SubmissionMigrationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Answer rows moved into submissions keep resolving under the response ids they had as rows.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migration;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test"
+})
+class SubmissionMigrationTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ResponseService responseService;
+
+    @Autowired
+    private SubmissionMigrationService submissionMigrationService;
+
+    @Test
+    void movedAnswersResolveUnderTheirOldIds() {
+        Survey survey = seedSurvey();
+        List<Question> questions = questionRepository.findBySurvey(survey);
+        UUID respondentId = UUID.randomUUID();
+        long first = insertAnswer(survey, questions.get(0), respondentId, "Good");
+        long second = insertAnswer(survey, questions.get(1), respondentId, "Quick");
+
+        assertEquals(1, submissionMigrationService.migrateSurvey(survey.getSurveyId()).migrated());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM responses WHERE survey_id = ?", Long.class, survey.getSurveyId()));
+
+        Response moved = responseService.getResponseById(first);
+        assertNotNull(moved);
+        assertEquals(first, moved.getResponseId());
+        assertEquals("Good", moved.getAnswerText());
+        assertEquals(questions.get(0).getQuestionId(), moved.getQuestion().getQuestionId());
+
+        // Listed under the synthetic id, which resolves to the same answer
+        long listedId = responseService.getResponseViews(survey.getSurveyId()).stream()
+                .filter(view -> "Good".equals(view.answerText())).findFirst().orElseThrow().responseId();
+        assertTrue(Submission.isAnswerId(listedId));
+        assertEquals("Good", responseService.getResponseById(listedId).getAnswerText());
+
+        responseService.deleteResponse(first);
+        assertNull(responseService.getResponseById(first));
+        assertNull(responseService.getResponseById(listedId));
+        assertEquals("Quick", responseService.getResponseById(second).getAnswerText());
+        assertEquals(1, responseService.getResponseViews(survey.getSurveyId()).size());
+    }
+
+    private long insertAnswer(Survey survey, Question question, UUID respondentId, String answerText) {
+        jdbcTemplate.update("INSERT INTO responses (survey_id, question_id, respondent_id, answer_text, submitted_at) " +
+                        "VALUES (?, ?, ?, ?, ?)", survey.getSurveyId(), question.getQuestionId(), respondentId, answerText,
+                Timestamp.valueOf(LocalDateTime.now()));
+        return jdbcTemplate.queryForObject("SELECT response_id FROM responses WHERE question_id = ? AND respondent_id = ?",
+                Long.class, question.getQuestionId(), respondentId);
+    }
+
+    private Survey seedSurvey() {
+        Survey survey = new Survey();
+        survey.setTitle("Migration test");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey = surveyRepository.save(survey);
+
+        for (String text : List.of("How was it?", "How was delivery?")) {
+            Question question = new Question();
+            question.setSurvey(survey);
+            question.setQuestionText(text);
+            question.setQuestionType("text");
+            questionRepository.save(question);
+        }
+        return survey;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.surveyx;
+
+import com.example.surveyx.models.Question;
+import com.example.surveyx.models.Survey;
+import com.example.surveyx.repositories.QuestionRepository;
+import com.example.surveyx.repositories.SurveyRepository;
+import com.example.surveyx.services.SubmissionRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admission control on public submissions: the per-client and per-survey token buckets
+ * and the cap on concurrent writes.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ratelimit;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test",
+        "app.rate-limit.client-per-minute=3",
+        "app.rate-limit.max-concurrent-writes=2"
+})
+@AutoConfigureMockMvc
+class SubmissionRateLimitTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SubmissionRateLimiter submissionRateLimiter;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Test
+    void clientOverItsBudgetIsRejectedWithoutAffectingOthers() throws Exception {
+        Survey survey = seedSurvey(null);
+        for (int i = 0; i < 3; i++) {
+            submit(survey, "10.0.0.1").andExpect(status().isAccepted());
+        }
+        double rejected = rejectedCount(SubmissionRateLimiter.REASON_CLIENT);
+
+        String retryAfter = submit(survey, "10.0.0.1")
+                .andExpect(status().isTooManyRequests())
+                .andReturn().getResponse().getHeader(HttpHeaders.RETRY_AFTER);
+        // One token refills every 20 seconds at 3 per minute
+        assertEquals("20", retryAfter);
+        assertEquals(rejected + 1, rejectedCount(SubmissionRateLimiter.REASON_CLIENT));
+
+        submit(survey, "10.0.0.2").andExpect(status().isAccepted());
+    }
+
+    @Test
+    void surveyLimitCoversAllClients() throws Exception {
+        Survey survey = seedSurvey(2);
+        submit(survey, "10.0.1.1").andExpect(status().isAccepted());
+        submit(survey, "10.0.1.2").andExpect(status().isAccepted());
+        double rejected = rejectedCount(SubmissionRateLimiter.REASON_SURVEY);
+
+        submit(survey, "10.0.1.3")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        assertEquals(rejected + 1, rejectedCount(SubmissionRateLimiter.REASON_SURVEY));
+
+        // Other surveys keep their own budget
+        submit(seedSurvey(2), "10.0.1.3").andExpect(status().isAccepted());
+    }
+
+    @Test
+    void writesOverTheConcurrencyCapAreRejectedUntilOneEnds() {
+        assertNull(submissionRateLimiter.tryStartWrite());
+        assertNull(submissionRateLimiter.tryStartWrite());
+
+        SubmissionRateLimiter.Rejection rejection = submissionRateLimiter.tryStartWrite();
+        assertNotNull(rejection);
+        assertEquals(SubmissionRateLimiter.REASON_CONCURRENCY, rejection.reason());
+
+        submissionRateLimiter.endWrite();
+        assertNull(submissionRateLimiter.tryStartWrite());
+        submissionRateLimiter.endWrite();
+        submissionRateLimiter.endWrite();
+    }
+
+    private ResultActions submit(Survey survey, String clientAddress) throws Exception {
+        Long questionId = questionRepository.findBySurvey(survey).get(0).getQuestionId();
+        return mockMvc.perform(post("/survey/api/" + survey.getSurveyLink() + "/submit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"question\":{\"questionId\":" + questionId + "},\"answerText\":\"Fine\"}]")
+                .with(request -> {
+                    request.setRemoteAddr(clientAddress);
+                    return request;
+                }));
+    }
+
+    private double rejectedCount(String reason) {
+        return meterRegistry.counter("submissions.rejected", "reason", reason).count();
+    }
+
+    private Survey seedSurvey(Integer submissionRateLimit) {
+        Survey survey = new Survey();
+        survey.setTitle("Rate limit test");
+        survey.setSurveyLink(UUID.randomUUID().toString());
+        survey.setStatus("active");
+        survey.setSubmissionRateLimit(submissionRateLimit);
+        survey = surveyRepository.save(survey);
+
+        Question question = new Question();
+        question.setSurvey(survey);
+        question.setQuestionText("How was it?");
+        question.setQuestionType("text");
+        questionRepository.save(question);
+        return survey;
+    }
+}
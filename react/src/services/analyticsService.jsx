@@ -4,6 +4,11 @@ export const getSurveyAnalytics = (surveyId) => {
   return axios.get(`/api/analytics/survey/${surveyId}`);
 };
 
+// Starts generation and resolves to the job; poll getAnalyticsJob until it has finished
 export const generateSurveyAnalytics = (surveyId) => {
   return axios.post(`/api/analytics/survey/${surveyId}`);
+};
+
+export const getAnalyticsJob = (jobId) => {
+  return axios.get(`/api/analytics/jobs/${jobId}`);
 };
\ No newline at end of file